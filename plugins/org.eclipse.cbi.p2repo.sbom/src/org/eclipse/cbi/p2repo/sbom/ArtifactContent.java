@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * The content of an artifact, either a file, e.g., a downloaded artifact in the
+ * cache, which is read incrementally, or bytes already in memory, e.g., a
+ * nested jar.
+ */
+public final class ArtifactContent {
+
+	public static final ArtifactContent EMPTY = new ArtifactContent(null, new byte[0]);
+
+	private final Path path;
+
+	private final byte[] bytes;
+
+	private ArtifactContent(Path path, byte[] bytes) {
+		this.path = path;
+		this.bytes = bytes;
+	}
+
+	public static ArtifactContent of(Path path) {
+		return new ArtifactContent(path, null);
+	}
+
+	public static ArtifactContent of(byte[] bytes) {
+		return new ArtifactContent(null, bytes);
+	}
+
+	public boolean isEmpty() throws IOException {
+		return path != null ? Files.size(path) == 0 : bytes.length == 0;
+	}
+
+	public InputStream openStream() throws IOException {
+		return path != null ? Files.newInputStream(path) : new ByteArrayInputStream(bytes);
+	}
+
+	/**
+	 * Returns whether the content starts with the signature of a zip's local file
+	 * header.
+	 */
+	public boolean isZip() throws IOException {
+		if (path == null) {
+			return bytes.length > 2 && bytes[0] == 0x50 && bytes[1] == 0x4B;
+		}
+		try (var in = openStream()) {
+			var signature = in.readNBytes(3);
+			return signature.length > 2 && signature[0] == 0x50 && signature[1] == 0x4B;
+		}
+	}
+
+	public String computeHash(String algorithm) throws IOException {
+		if (path == null) {
+			return BOMUtil.computeHash(algorithm, bytes);
+		}
+		try (var in = openStream()) {
+			var digest = MessageDigest.getInstance(algorithm);
+			var buffer = new byte[0x10000];
+			for (int length; (length = in.read(buffer)) != -1;) {
+				digest.update(buffer, 0, length);
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public boolean contentEquals(Path other) throws IOException {
+		return path != null ? Files.mismatch(path, other) == -1 : IOUtil.contentEquals(bytes, other);
+	}
+
+	public Map<String, IOUtil.ZipEntrySummary> getZipDirectory() throws IOException {
+		return path != null ? IOUtil.getZipDirectory(path) : IOUtil.getZipDirectory(bytes);
+	}
+
+	public Map<String, byte[]> getZipContents() throws IOException {
+		return path != null ? IOUtil.getZipContents(path) : IOUtil.getZipContents(bytes);
+	}
+}
@@ -10,6 +10,7 @@
  */
 package org.eclipse.cbi.p2repo.sbom;
 
+import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -67,8 +68,8 @@ public final class BOMUtil {
 
 	public static Property createProperty(String name, String value) {
 		var property = new Property();
-		property.setName(name);
-		property.setValue(value);
+		property.setName(StringInterner.intern(name));
+		property.setValue(StringInterner.intern(value));
 		return property;
 	}
 
@@ -89,7 +90,7 @@ public final class BOMUtil {
 
 	public static Property createProperty(String name, Stream<? extends CharSequence> values) {
 		var property = new Property();
-		property.setName(name);
+		property.setName(StringInterner.intern(name));
 		property.setValue(values.collect(INDENTED_PROPERTY_VALUE_COLLECTOR));
 		return property;
 	}
@@ -108,7 +109,7 @@ public final class BOMUtil {
 							}
 						} else if (url.startsWith(otherURL)) {
 							if (url.charAt(otherURL.length()) == '?') {
-								otherExternalReference.setUrl(url);
+								otherExternalReference.setUrl(StringInterner.intern(url));
 								return;
 							}
 						}
@@ -122,16 +123,58 @@ public final class BOMUtil {
 	public static ExternalReference createExternalReference(ExternalReference.Type type, String url) {
 		var externalReference = new ExternalReference();
 		externalReference.setType(type);
-		externalReference.setUrl(url);
+		externalReference.setUrl(StringInterner.intern(url));
 		return externalReference;
 	}
 
+	public static Component createJarComponent(Component parent, String path) {
+		var component = new Component();
+		component.setBomRef(parent.getBomRef() + "^" + path);
+		component.setType(Component.Type.LIBRARY);
+		component.setName(path);
+		component.setScope(Component.Scope.REQUIRED);
+		return component;
+	}
+
 	public static void addHashes(Component component, byte[] bytes) {
 		for (String algorithm : ALGORITHMS) {
 			component.addHash(new Hash(algorithm, computeHash(algorithm, bytes)));
 		}
 	}
 
+	public static List<MessageDigest> createMessageDigests() {
+		try {
+			var digests = new ArrayList<MessageDigest>();
+			for (var algorithm : ALGORITHMS) {
+				digests.add(MessageDigest.getInstance(algorithm));
+			}
+			return digests;
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	// The digests must be those created by createMessageDigests.
+	public static void addHashes(Component component, List<MessageDigest> digests) {
+		for (var digest : digests) {
+			component.addHash(new Hash(digest.getAlgorithm(), HexFormat.of().formatHex(digest.digest())));
+		}
+	}
+
+	// Prefer a hash already computed by addHashes.
+	public static String getHash(Component component, String algorithm, ArtifactContent content)
+			throws IOException {
+		var hashes = component.getHashes();
+		if (hashes != null) {
+			for (var hash : hashes) {
+				if (algorithm.equals(hash.getAlgorithm())) {
+					return hash.getValue();
+				}
+			}
+		}
+		return content.computeHash(algorithm);
+	}
+
 	public static String computeHash(String algorithm, byte[] bytes) {
 		try {
 			var digest = MessageDigest.getInstance(algorithm);
@@ -0,0 +1,670 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A content-addressed store backing the {@link ContentHandler} cache.
+ * <p>
+ * Each distinct content is stored exactly once as a blob named by its SHA-256
+ * hash. A compact append-only index maps each key, typically a URI, to the hash
+ * of its content and the time at which it was cached. The index is guarded by a
+ * file lock so that multiple JVMs can share the same store, and the least
+ * recently used blobs are evicted when the store grows beyond its maximum size.
+ * The access times are tracked in memory, seeded from the blobs' modification
+ * times and the index timestamps, and are written back to the blobs when
+ * evicting so that other processes see them.
+ * </p>
+ */
+public final class CacheStore {
+
+	private static final String MISSING = "-";
+
+	public static final String HASH_ALGORITHM = "SHA-256";
+
+	private static final double EVICTION_WATERMARK = 0.9;
+
+	private static final int LOCK_STRIPE_LENGTH = 3;
+
+	private static final long STALE_TEMPORARY_FILE_AGE = TimeUnit.DAYS.toMillis(1);
+
+	public static record Entry(String key, String hash, long size, long timestamp) {
+		public boolean isMissing() {
+			return MISSING.equals(hash);
+		}
+
+		private String toLine() {
+			return timestamp + " " + hash + " " + size + " " + key + "\n";
+		}
+
+		private static Entry parse(String line) {
+			var parts = line.split(" ", 4);
+			if (parts.length != 4) {
+				return null;
+			}
+			try {
+				return new Entry(parts[3], parts[1], Long.parseLong(parts[2]), Long.parseLong(parts[0]));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+	}
+
+	public interface ContentWriter {
+		void write(Path path) throws IOException;
+	}
+
+	public interface Lock extends AutoCloseable {
+		@Override
+		void close() throws IOException;
+	}
+
+	private interface IndexAction {
+		void run() throws IOException;
+	}
+
+	private record Blob(long size, long lastAccess) {
+	}
+
+	private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final Map<String, Blob> blobInfos = new ConcurrentHashMap<>();
+
+	private final Set<String> accessedHashes = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong size = new AtomicLong();
+
+	private final Path root;
+
+	private final Path blobs;
+
+	private final Path files;
+
+	private final Path temporary;
+
+	private final Path index;
+
+	private final Path indexLock;
+
+	private final Path lockFolder;
+
+	private final long maxSize;
+
+	private long indexPosition;
+
+	private Object indexKey;
+
+	public CacheStore(Path root, long maxSize) throws IOException {
+		this.root = root;
+		this.maxSize = maxSize;
+		blobs = root.resolve("blobs");
+		files = root.resolve("files");
+		temporary = root.resolve("tmp");
+		index = root.resolve("index");
+		indexLock = root.resolve("index.lock");
+		lockFolder = root.resolve("locks");
+		Files.createDirectories(blobs);
+		Files.createDirectories(temporary);
+		Files.createDirectories(lockFolder);
+		deleteStaleTemporaryFiles();
+		scanBlobs();
+	}
+
+	public Path getRoot() {
+		return root;
+	}
+
+	/**
+	 * Returns the entry for the key, or null if there is none. A lookup never
+	 * waits for the {@link #lock(String) lock} of a key, which is held while its
+	 * content is downloaded. A hit is served from memory and only a miss reads
+	 * what other processes have appended to the index.
+	 */
+	public Entry get(String key) {
+		var entry = entries.get(key);
+		if (entry == null) {
+			try {
+				refresh();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			entry = entries.get(key);
+		}
+
+		if (entry != null && !entry.isMissing()) {
+			if (!Files.isRegularFile(getBlob(entry.hash()))) {
+				// The blob was evicted, possibly by another process.
+				entries.remove(key, entry);
+				return null;
+			}
+			recordAccess(entry.hash(), System.currentTimeMillis());
+			accessedHashes.add(entry.hash());
+		}
+		return entry;
+	}
+
+	/**
+	 * Acquires a lock for the given key that excludes other threads and other
+	 * processes, e.g., while the content for the key is being downloaded. The
+	 * locks are striped over a fixed number of lock files so that lock files never
+	 * need to be deleted.
+	 */
+	public Lock lock(String key) throws IOException {
+		var stripe = getStripe(key);
+		var lock = getLock(stripe);
+		try {
+			lock.lockInterruptibly();
+		} catch (InterruptedException e) {
+			throw IOUtil.toInterruptedIOException(e);
+		}
+
+		if (lock.getHoldCount() > 1) {
+			// This thread already holds the file lock for this stripe.
+			return lock::unlock;
+		}
+
+		try {
+			var channel = FileChannel.open(lockFolder.resolve(stripe + ".lock"), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE);
+			try {
+				var fileLock = channel.lock();
+				return () -> {
+					try {
+						fileLock.release();
+						channel.close();
+					} finally {
+						lock.unlock();
+					}
+				};
+			} catch (IOException | RuntimeException e) {
+				channel.close();
+				throw e;
+			}
+		} catch (IOException | RuntimeException e) {
+			lock.unlock();
+			throw e;
+		}
+	}
+
+	private String getStripe(String key) {
+		return computeHash(key.getBytes(StandardCharsets.UTF_8)).substring(0, LOCK_STRIPE_LENGTH);
+	}
+
+	private ReentrantLock getLock(String stripe) {
+		return locks.computeIfAbsent(stripe, it -> new ReentrantLock());
+	}
+
+	public synchronized void refresh() throws IOException {
+		if (Files.isRegularFile(index)) {
+			withIndexLock(true, this::readIndex);
+		}
+	}
+
+	// Runs the action while holding the index file lock that coordinates processes.
+	private void withIndexLock(boolean shared, IndexAction action) throws IOException {
+		try (var channel = FileChannel.open(indexLock, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.READ)) {
+			var lock = channel.lock(0, Long.MAX_VALUE, shared);
+			try {
+				action.run();
+			} finally {
+				lock.release();
+			}
+		}
+	}
+
+	public Path getPath(Entry entry) {
+		return getBlob(entry.hash());
+	}
+
+	public Path getNamedPath(Entry entry, String name) throws IOException {
+		var path = files.resolve(entry.hash()).resolve(name);
+		if (!Files.isRegularFile(path)) {
+			Files.createDirectories(path.getParent());
+			var temporaryPath = newTemporaryFile();
+			try {
+				Files.delete(temporaryPath);
+				try {
+					Files.createLink(temporaryPath, getPath(entry));
+				} catch (IOException | UnsupportedOperationException e) {
+					Files.copy(getPath(entry), temporaryPath);
+				}
+				Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(temporaryPath);
+			}
+		}
+		return path;
+	}
+
+	public Path newTemporaryFile() throws IOException {
+		return Files.createTempFile(temporary, UUID.randomUUID().toString(), ".tmp");
+	}
+
+	public Entry put(String key, byte[] content) throws IOException {
+		return put(key, path -> Files.write(path, content));
+	}
+
+	public Entry put(String key, ContentWriter writer) throws IOException {
+		var temporaryPath = newTemporaryFile();
+		try {
+			writer.write(temporaryPath);
+			return put(key, temporaryPath);
+		} finally {
+			Files.deleteIfExists(temporaryPath);
+		}
+	}
+
+	// The file is moved into the store so it should be in the same file system.
+	public Entry put(String key, Path path) throws IOException {
+		return put(key, path, computeHash(path));
+	}
+
+	// The hash must be the HASH_ALGORITHM digest of the file's content, e.g.,
+	// computed while the file was written, so that the file is not read again.
+	public Entry put(String key, Path path, String hash) throws IOException {
+		var length = Files.size(path);
+		store(path, hash);
+		var entry = new Entry(key, hash, length, System.currentTimeMillis());
+		append(List.of(entry));
+
+		if (maxSize > 0 && size.get() > maxSize) {
+			evict(hash);
+		}
+
+		return entry;
+	}
+
+	public Entry putMissing(String key) throws IOException {
+		var entry = new Entry(key, MISSING, 0, System.currentTimeMillis());
+		append(List.of(entry));
+		return entry;
+	}
+
+	/**
+	 * Exports the entries for the given keys, along with their content, to a zip
+	 * archive that can be {@link #importArchive(Path) imported} into another
+	 * store, e.g., on a machine without network access. Keys without an entry are
+	 * ignored.
+	 */
+	public int exportArchive(Collection<String> keys, Path archive) throws IOException {
+		var exported = new ArrayList<Entry>();
+		synchronized (this) {
+			refresh();
+			for (var key : new TreeSet<>(keys)) {
+				var entry = entries.get(key);
+				if (entry != null && (entry.isMissing() || Files.isRegularFile(getBlob(entry.hash())))) {
+					exported.add(entry);
+				}
+			}
+		}
+
+		if (archive.getParent() != null) {
+			Files.createDirectories(archive.getParent());
+		}
+		try (var out = new ZipOutputStream(Files.newOutputStream(archive))) {
+			var indexContent = new StringBuilder();
+			var hashes = new HashSet<String>();
+			for (var entry : exported) {
+				indexContent.append(entry.toLine());
+				if (!entry.isMissing() && hashes.add(entry.hash())) {
+					out.putNextEntry(new ZipEntry("blobs/" + entry.hash()));
+					Files.copy(getBlob(entry.hash()), out);
+					out.closeEntry();
+				}
+			}
+			out.putNextEntry(new ZipEntry("index"));
+			out.write(indexContent.toString().getBytes(StandardCharsets.UTF_8));
+			out.closeEntry();
+		}
+		return exported.size();
+	}
+
+	/**
+	 * Imports the entries and content of an archive created by
+	 * {@link #exportArchive(Collection, Path)}. The imported entries retain their
+	 * original timestamps and never replace more recent entries of this store.
+	 */
+	public int importArchive(Path archive) throws IOException {
+		var imported = new ArrayList<Entry>();
+		try (var in = new ZipInputStream(Files.newInputStream(archive))) {
+			for (var zipEntry = in.getNextEntry(); zipEntry != null; zipEntry = in.getNextEntry()) {
+				var name = zipEntry.getName();
+				if (name.equals("index")) {
+					for (var line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+						var entry = Entry.parse(line);
+						if (entry != null) {
+							imported.add(entry);
+						}
+					}
+				} else if (name.startsWith("blobs/")) {
+					var temporaryPath = newTemporaryFile();
+					try {
+						Files.copy(in, temporaryPath, StandardCopyOption.REPLACE_EXISTING);
+						var hash = computeHash(temporaryPath);
+						store(temporaryPath, hash);
+						if (!name.equals("blobs/" + hash)) {
+							throw new IOException("Corrupt cache archive entry " + name + " in " + archive);
+						}
+					} finally {
+						Files.deleteIfExists(temporaryPath);
+					}
+				}
+			}
+		}
+
+		var newer = new ArrayList<Entry>();
+		synchronized (this) {
+			refresh();
+			for (var entry : imported) {
+				var existing = entries.get(entry.key());
+				if ((existing == null || existing.timestamp() < entry.timestamp())
+						&& (entry.isMissing() || Files.isRegularFile(getBlob(entry.hash())))) {
+					newer.add(entry);
+				}
+			}
+		}
+		append(newer);
+		return newer.size();
+	}
+
+	public void evict() throws IOException {
+		evict(null);
+	}
+
+	private synchronized void evict(String retainedHash) throws IOException {
+		withIndexLock(false, () -> {
+			// Learn about the blobs stored by other processes.
+			readIndex();
+
+			// Publish this process's accesses for the other processes.
+			for (var hash : accessedHashes) {
+				var blobInfo = blobInfos.get(hash);
+				if (blobInfo != null) {
+					try {
+						Files.setLastModifiedTime(getBlob(hash), FileTime.fromMillis(blobInfo.lastAccess()));
+					} catch (NoSuchFileException e) {
+						// Evicted by another process.
+					}
+				}
+			}
+			accessedHashes.clear();
+
+			var target = (long) (maxSize * EVICTION_WATERMARK);
+			var candidates = new ArrayList<>(blobInfos.entrySet());
+			candidates.sort(Comparator.comparingLong(it -> it.getValue().lastAccess()));
+			var evicted = new HashSet<String>();
+			for (var candidate : candidates) {
+				if (size.get() <= target) {
+					break;
+				}
+				var hash = candidate.getKey();
+				if (hash.equals(retainedHash)) {
+					// Never evict the content that is just being stored.
+					continue;
+				}
+				var blob = getBlob(hash);
+				try {
+					var lastModified = Files.getLastModifiedTime(blob).toMillis();
+					if (lastModified > candidate.getValue().lastAccess()) {
+						// Another process accessed it more recently.
+						recordAccess(hash, lastModified);
+						continue;
+					}
+					Files.delete(blob);
+				} catch (NoSuchFileException e) {
+					// Already evicted by another process.
+				}
+				var namedFiles = files.resolve(hash);
+				if (Files.isDirectory(namedFiles)) {
+					IOUtil.delete(namedFiles);
+				}
+				removeBlob(hash);
+				evicted.add(hash);
+			}
+
+			if (!evicted.isEmpty()) {
+				compact(evicted);
+			}
+		});
+	}
+
+	private void compact(Set<String> evicted) throws IOException {
+		// Keep only the latest entry for each key whose content has not been evicted.
+		readIndex();
+		var compacted = new LinkedHashMap<String, Entry>();
+		for (var entry : entries.values()) {
+			if (!evicted.contains(entry.hash())) {
+				compacted.put(entry.key(), entry);
+			}
+		}
+
+		var out = new ByteArrayOutputStream();
+		for (var entry : compacted.values()) {
+			out.writeBytes(entry.toLine().getBytes(StandardCharsets.UTF_8));
+		}
+		var temporaryIndex = newTemporaryFile();
+		Files.write(temporaryIndex, out.toByteArray());
+		Files.move(temporaryIndex, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+		entries.clear();
+		entries.putAll(compacted);
+		indexPosition = out.size();
+		indexKey = getIndexKey();
+	}
+
+	// Moves the file into the store, unless identical content is already stored.
+	private void store(Path path, String hash) throws IOException {
+		var blob = getBlob(hash);
+		var length = Files.size(path);
+		var now = System.currentTimeMillis();
+		if (Files.isRegularFile(blob)) {
+			Files.delete(path);
+			addBlob(hash, length, now);
+			accessedHashes.add(hash);
+		} else {
+			Files.createDirectories(blob.getParent());
+			try {
+				Files.move(path, blob, StandardCopyOption.ATOMIC_MOVE);
+			} catch (FileAlreadyExistsException e) {
+				// Another thread or process stored the identical content concurrently.
+				Files.delete(path);
+			}
+			addBlob(hash, length, now);
+		}
+	}
+
+	private synchronized void append(List<Entry> newEntries) throws IOException {
+		if (newEntries.isEmpty()) {
+			return;
+		}
+
+		withIndexLock(false, () -> {
+			// Read what other processes have appended so our position stays in sync.
+			readIndex();
+			try (var indexChannel = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND)) {
+				var bytes = newEntries.stream().map(Entry::toLine).collect(Collectors.joining())
+						.getBytes(StandardCharsets.UTF_8);
+				var buffer = ByteBuffer.wrap(bytes);
+				while (buffer.hasRemaining()) {
+					indexChannel.write(buffer);
+				}
+				indexPosition += bytes.length;
+			}
+			for (var entry : newEntries) {
+				entries.put(entry.key(), entry);
+			}
+		});
+	}
+
+	private void readIndex() throws IOException {
+		if (!Files.isRegularFile(index)) {
+			entries.clear();
+			indexPosition = 0;
+			return;
+		}
+
+		try (var channel = FileChannel.open(index, StandardOpenOption.READ)) {
+			var key = getIndexKey();
+			var length = channel.size();
+			if (!Objects.equals(key, indexKey) || length < indexPosition) {
+				// The index was compacted by another process.
+				entries.clear();
+				indexPosition = 0;
+				indexKey = key;
+			}
+
+			if (length > indexPosition) {
+				var buffer = ByteBuffer.allocate((int) (length - indexPosition));
+				channel.position(indexPosition);
+				while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+				}
+				var bytes = buffer.array();
+				var start = 0;
+				for (var i = 0; i < bytes.length; ++i) {
+					if (bytes[i] == '\n') {
+						var entry = Entry.parse(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+						if (entry != null) {
+							entries.put(entry.key(), entry);
+							if (!entry.isMissing()) {
+								addBlob(entry.hash(), entry.size(), entry.timestamp());
+							}
+						}
+						start = i + 1;
+					}
+				}
+				// Only complete lines are consumed.
+				indexPosition += start;
+			}
+		}
+	}
+
+	private Object getIndexKey() throws IOException {
+		try {
+			return Files.readAttributes(index, BasicFileAttributes.class).fileKey();
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	private Path getBlob(String hash) {
+		return blobs.resolve(hash.substring(0, 2)).resolve(hash);
+	}
+
+	private void addBlob(String hash, long length, long lastAccess) {
+		if (blobInfos.putIfAbsent(hash, new Blob(length, lastAccess)) == null) {
+			size.addAndGet(length);
+		} else {
+			recordAccess(hash, lastAccess);
+		}
+	}
+
+	private void removeBlob(String hash) {
+		var blobInfo = blobInfos.remove(hash);
+		if (blobInfo != null) {
+			size.addAndGet(-blobInfo.size());
+		}
+	}
+
+	private void recordAccess(String hash, long lastAccess) {
+		blobInfos.computeIfPresent(hash, (it, blobInfo) -> lastAccess > blobInfo.lastAccess()
+				? new Blob(blobInfo.size(), lastAccess)
+				: blobInfo);
+	}
+
+	// The only walk over the blobs, after which they're tracked in memory.
+	private void scanBlobs() throws IOException {
+		try (var stream = Files.walk(blobs)) {
+			for (var path : (Iterable<Path>) stream.filter(Files::isRegularFile)::iterator) {
+				try {
+					var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+					addBlob(path.getFileName().toString(), attributes.size(),
+							attributes.lastModifiedTime().toMillis());
+				} catch (NoSuchFileException e) {
+					// Evicted concurrently by another process.
+				}
+			}
+		}
+	}
+
+	private void deleteStaleTemporaryFiles() throws IOException {
+		var threshold = System.currentTimeMillis() - STALE_TEMPORARY_FILE_AGE;
+		try (var stream = Files.list(temporary)) {
+			for (var path : (Iterable<Path>) stream::iterator) {
+				try {
+					if (Files.getLastModifiedTime(path).toMillis() < threshold) {
+						Files.deleteIfExists(path);
+					}
+				} catch (IOException e) {
+					// Another process may be cleaning up concurrently.
+				}
+			}
+		}
+	}
+
+	private static String computeHash(byte[] bytes) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance(HASH_ALGORITHM).digest(bytes));
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static String computeHash(Path path) throws IOException {
+		try (var in = new DigestInputStream(Files.newInputStream(path), MessageDigest.getInstance(HASH_ALGORITHM))) {
+			in.transferTo(OutputStream.nullOutputStream());
+			return HexFormat.of().formatHex(in.getMessageDigest().digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -12,38 +12,75 @@ package org.eclipse.cbi.p2repo.sbom;
 
 import static org.eclipse.cbi.p2repo.sbom.BOMUtil.urlEncodeQueryParameter;
 import static org.eclipse.cbi.p2repo.sbom.IOUtil.toInterruptedIOException;
-import static org.eclipse.cbi.p2repo.sbom.XMLUtil.newDocumentBuilder;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.net.URLDecoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandler;
 import java.net.http.HttpResponse.BodyHandlers;
-import java.nio.charset.StandardCharsets;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Supplier;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
-import javax.xml.parsers.ParserConfigurationException;
-
 import org.w3c.dom.Document;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
-public class ContentHandler {
+/**
+ * Fetches and caches network content. Each blocking method has an asynchronous
+ * counterpart with the same caching, redirection and retry behavior, where the
+ * retries are scheduled rather than slept and the requests, which hold a cache
+ * lock while in progress, run on virtual threads.
+ */
+public class ContentHandler implements AutoCloseable {
+
+	/**
+	 * The settings of the HTTP transport, with timeouts in seconds. The number of
+	 * concurrent requests is limited rather than the number of connections because
+	 * the HTTP client does not support limiting its connection pool.
+	 */
+	public static record Transport(HttpClient.Version version, int connectTimeout, int timeout,
+			int maxConcurrentRequests) {
+
+		public static HttpClient.Version parseVersion(String version) {
+			return switch (version) {
+			case "1.1" -> HttpClient.Version.HTTP_1_1;
+			case "2" -> HttpClient.Version.HTTP_2;
+			default -> throw new IllegalArgumentException("Expecting an HTTP version of 1.1 or 2: " + version);
+			};
+		}
+	}
 
 	public static class ContentHandlerException extends IOException {
 		private static final long serialVersionUID = 1L;
@@ -86,171 +123,596 @@ public class ContentHandler {
 		}
 	}
 
-	private final Map<URI, Boolean> exists = new ConcurrentHashMap<>();
+	public static class OfflineException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		private OfflineException(URI uri) {
+			super("Not available in the offline cache -> " + uri);
+		}
+	}
+
+	private final Map<URI, CompletableFuture<Boolean>> exists = new ConcurrentHashMap<>();
+
+	private final Set<String> accessedCacheKeys = ConcurrentHashMap.newKeySet();
 
-	private final Path cache;
+	private final CacheStore cache;
 
 	private final URIUtil.URIMap uriMap;
 
+	private final MavenResolver mavenResolver;
+
 	private final HttpClient httpClient;
 
+	private final ExecutorService executor;
+
+	private final Semaphore requests;
+
 	private final int retry;
 
 	private final int retryDelay;
 
-	private final int timeout;
+	private final Transport transport;
+
+	private final boolean offline;
 
-	public ContentHandler(String cache, URIUtil.URIMap uriMap, int retry, int retryDelay, int timeout) {
+	public ContentHandler(String cache, int cacheMaxSize, URIUtil.URIMap uriMap, MavenResolver mavenResolver,
+			int retry, int retryDelay, Transport transport, boolean offline) {
 		this.uriMap = uriMap;
+		this.mavenResolver = mavenResolver;
 		this.retry = retry;
 		this.retryDelay = retryDelay;
-		this.timeout = timeout;
-		httpClient = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
+		this.transport = transport;
+		this.offline = offline;
+		requests = new Semaphore(transport.maxConcurrentRequests());
+		if (offline) {
+			// In offline mode there is no client so nothing can ever reach the network.
+			executor = null;
+			httpClient = null;
+		} else {
+			// With HTTP/2, concurrent requests to the same host are multiplexed over one
+			// connection, so waiting for responses needs only cheap virtual threads.
+			executor = Executors.newVirtualThreadPerTaskExecutor();
+			httpClient = HttpClient.newBuilder().version(transport.version())
+					.connectTimeout(Duration.ofSeconds(transport.connectTimeout()))
+					.followRedirects(HttpClient.Redirect.NORMAL).executor(executor).build();
+		}
 
 		try {
-			this.cache = cache != null ? Path.of(cache).toAbsolutePath()
+			var cacheFolder = cache != null ? Path.of(cache).toAbsolutePath()
 					: Files.createTempDirectory("org.eclipse.cbi.p2repo.sbom.cache");
+			this.cache = new CacheStore(cacheFolder, cacheMaxSize * 1024L * 1024L);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	/**
+	 * Closes the HTTP client's connections and the virtual thread executor after
+	 * any requests in progress complete. Cached content can still be read.
+	 */
+	@Override
+	public void close() {
+		if (httpClient != null) {
+			httpClient.close();
+			executor.close();
+		}
+	}
+
+	public boolean isOffline() {
+		return offline;
+	}
+
+	public CacheStore getCache() {
+		return cache;
+	}
+
+	/**
+	 * Returns the keys of all cache entries used so far, i.e., the entries needed
+	 * to repeat the same generation in offline mode.
+	 */
+	public Set<String> getAccessedCacheKeys() {
+		return Set.copyOf(accessedCacheKeys);
+	}
+
 	public boolean exists(URI uri) {
-		return exists.computeIfAbsent(uriMap.redirect(uri), u -> {
-			var path = getCachePath(uri);
-			if (Files.isRegularFile(path) && !isCacheExpired(path)) {
-				return true;
-			}
+		try {
+			return get(existsAsync(uri));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
 
-			var path404 = getCachePath404(uri);
-			if (Files.isRegularFile(path404) && !isCacheExpired(path404)) {
-				return false;
+	public CompletableFuture<Boolean> existsAsync(URI uri) {
+		var redirectedURI = redirect(uri);
+		var result = exists.computeIfAbsent(redirectedURI, u -> checkExists(uri, u));
+		// Failures are not remembered so that a later check tries again.
+		result.whenComplete((value, throwable) -> {
+			if (throwable != null) {
+				exists.remove(redirectedURI, result);
 			}
+		});
+		return result;
+	}
+
+	private CompletableFuture<Boolean> checkExists(URI uri, URI redirectedURI) {
+		if ("file".equals(redirectedURI.getScheme())) {
+			return CompletableFuture.completedFuture(Files.exists(Path.of(redirectedURI)));
+		}
 
+		var exists = readExists(uri);
+		if (exists != null) {
+			return CompletableFuture.completedFuture(exists);
+		}
+
+		if (offline) {
+			return CompletableFuture.failedFuture(new OfflineException(uri));
+		}
+
+		return CompletableFuture.supplyAsync(() -> {
+			var headKey = getHeadCacheKey(uri);
 			try {
-				Files.createDirectories(path.getParent());
-				basicHead(uri, BodyHandlers.ofString());
-				Files.writeString(path, "");
-				return true;
+				var lock = cache.lock(headKey);
+				try {
+					// Another thread or process may have checked while we waited for the lock.
+					cache.refresh();
+					var cachedExists = readExists(uri);
+					if (cachedExists != null) {
+						return cachedExists;
+					}
+
+					basicHead(uri, BodyHandlers.ofString());
+					cache.put(headKey, new byte[0]);
+					accessedCacheKeys.add(headKey);
+					return true;
+				} finally {
+					lock.close();
+				}
 			} catch (ContentHandlerException e) {
 				if (e.statusCode() == 404) {
 					try {
-						Files.createDirectories(path404.getParent());
-						Files.writeString(path404, "");
+						cache.putMissing(headKey);
 					} catch (IOException e1) {
-						throw new RuntimeException(e);
+						throw new CompletionException(e1);
 					}
+					accessedCacheKeys.add(headKey);
 					return false;
 				}
-				throw new RuntimeException(e);
-			} catch (IOException | InterruptedException e) {
-				throw new RuntimeException(e);
+				throw new CompletionException(e);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			} catch (InterruptedException e) {
+				throw new CompletionException(toInterruptedIOException(e));
 			}
-		});
+		}, executor);
+	}
+
+	private Boolean readExists(URI uri) {
+		// Content fetched by a GET request is also proof of existence.
+		var entry = getCacheEntry(getCacheKey(uri));
+		if (entry != null && !entry.isMissing()) {
+			return true;
+		}
+
+		entry = getCacheEntry(getHeadCacheKey(uri));
+		if (entry != null) {
+			return !entry.isMissing();
+		}
+
+		return null;
+	}
+
+	private URI redirect(URI uri) {
+		// Content available in a local Maven repository is never fetched remotely.
+		var localURI = mavenResolver.resolve(uri);
+		return localURI != null ? localURI : uriMap.redirect(uri);
 	}
 
 	public String getPostContent(URI uri, List<String> headers, String body) throws IOException {
-		return getContent(URI.create(uriMap.redirect(uri) + "#"
+		return getContent(getPostURI(uri, headers, body));
+	}
+
+	public CompletableFuture<String> getPostContentAsync(URI uri, List<String> headers, String body) {
+		return getContentAsync(getPostURI(uri, headers, body));
+	}
+
+	private URI getPostURI(URI uri, List<String> headers, String body) {
+		return URI.create(redirect(uri) + "#"
 				+ headers.stream().map(BOMUtil::urlEncodeQueryParameter).collect(Collectors.joining(",")) + ","
-				+ urlEncodeQueryParameter(body)));
+				+ urlEncodeQueryParameter(body));
 	}
 
 	public String getContent(URI uri) throws IOException {
-		return getContent(uriMap.redirect(uri), Files::readString, Files::writeString, BodyHandlers.ofString());
+		return getContent(redirect(uri), Files::readString, Files::writeString, BodyHandlers.ofString());
+	}
+
+	public CompletableFuture<String> getContentAsync(URI uri) {
+		return getContentAsync(redirect(uri), Files::readString, Files::writeString, BodyHandlers.ofString());
 	}
 
 	public byte[] getBinaryContent(URI uri) throws IOException {
-		return getContent(uriMap.redirect(uri), Files::readAllBytes, Files::write, BodyHandlers.ofByteArray());
+		return getContent(redirect(uri), Files::readAllBytes, Files::write, BodyHandlers.ofByteArray());
+	}
+
+	public CompletableFuture<byte[]> getBinaryContentAsync(URI uri) {
+		return getContentAsync(redirect(uri), Files::readAllBytes, Files::write, BodyHandlers.ofByteArray());
+	}
+
+	/**
+	 * Returns the file of the binary content, where a download is streamed
+	 * directly to the cache. The given digests are updated with the content in the
+	 * same pass.
+	 */
+	public Path getBinaryContentFile(URI uri, List<MessageDigest> digests) throws IOException {
+		var redirectedURI = redirect(uri);
+		var downloadDigests = addStoreDigest(digests);
+		var temporaryPath = cache.newTemporaryFile();
+		// The stored entry is captured rather than looked up afterwards because it
+		// might be evicted concurrently.
+		var storedEntry = new AtomicReference<CacheStore.Entry>();
+		try {
+			var path = getContent(redirectedURI, it -> digest(it, digests), new Writer<Path>() {
+				@Override
+				public void write(Path path, Path content) throws IOException {
+					Files.move(content, path, StandardCopyOption.REPLACE_EXISTING);
+				}
+
+				@Override
+				public CacheStore.Entry put(CacheStore cache, String key, Path content) throws IOException {
+					// The content was hashed while it was downloaded.
+					var entry = cache.put(key, content, getStoreHash(downloadDigests));
+					storedEntry.set(entry);
+					return entry;
+				}
+			}, responseInfo -> BodySubscribers.fromSubscriber(
+					new DigestingFileSubscriber(temporaryPath, downloadDigests), DigestingFileSubscriber::getBody));
+
+			// Content read from a file or from the cache is returned by the reader.
+			var entry = storedEntry.get();
+			return entry != null ? cache.getPath(entry) : path;
+		} finally {
+			Files.deleteIfExists(temporaryPath);
+		}
+	}
+
+	/**
+	 * Returns the file of the binary content, which the writer writes directly to
+	 * the cache if it's not already cached, e.g., for content that's not fetched
+	 * with HTTP. The given digests are updated with the content in a single pass.
+	 */
+	public Path getBinaryContentFile(URI uri, CacheStore.ContentWriter writer, List<MessageDigest> digests)
+			throws IOException {
+		var key = getCacheKey(uri);
+		Reader<Path> reader = path -> digest(path, digests);
+		var path = readCache(uri, key, reader);
+		if (path != null) {
+			return path;
+		}
+
+		var lock = cache.lock(key);
+		try {
+			// Another thread or process may have written it while we waited for the lock.
+			cache.refresh();
+			path = readCache(uri, key, reader);
+			if (path == null) {
+				var temporaryPath = cache.newTemporaryFile();
+				try {
+					writer.write(temporaryPath);
+					var downloadDigests = addStoreDigest(digests);
+					digest(temporaryPath, downloadDigests);
+					path = cache.getPath(cache.put(key, temporaryPath, getStoreHash(downloadDigests)));
+					accessedCacheKeys.add(key);
+				} finally {
+					Files.deleteIfExists(temporaryPath);
+				}
+			}
+			return path;
+		} finally {
+			lock.close();
+		}
+	}
+
+	private static Path digest(Path path, List<MessageDigest> digests) throws IOException {
+		digests.forEach(MessageDigest::reset);
+		if (!digests.isEmpty()) {
+			try (var in = Files.newInputStream(path)) {
+				var buffer = new byte[0x10000];
+				for (int length; (length = in.read(buffer)) != -1;) {
+					for (var digest : digests) {
+						digest.update(buffer, 0, length);
+					}
+				}
+			}
+		}
+		return path;
 	}
 
-	public byte[] getBinaryContent(URI uri, Supplier<byte[]> supplier) throws IOException {
-		var path = getCachePath(uri);
-		if (Files.isRegularFile(path) && !isCacheExpired(path)) {
-			return Files.readAllBytes(path);
+	// The cache store's digest is shared with the given digests if possible.
+	private static List<MessageDigest> addStoreDigest(List<MessageDigest> digests) {
+		if (digests.stream().anyMatch(it -> CacheStore.HASH_ALGORITHM.equals(it.getAlgorithm()))) {
+			return digests;
+		}
+		try {
+			var result = new ArrayList<>(digests);
+			result.add(MessageDigest.getInstance(CacheStore.HASH_ALGORITHM));
+			return result;
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static String getStoreHash(List<MessageDigest> digests) {
+		for (var digest : digests) {
+			if (CacheStore.HASH_ALGORITHM.equals(digest.getAlgorithm())) {
+				try {
+					// The caller completes the original digest.
+					return HexFormat.of().formatHex(((MessageDigest) digest.clone()).digest());
+				} catch (CloneNotSupportedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+		throw new IllegalArgumentException("No " + CacheStore.HASH_ALGORITHM + " digest");
+	}
+
+	/**
+	 * Writes a response body to a file while updating the digests, such that the
+	 * body is never held in memory. Each attempt of a retried request starts
+	 * over.
+	 */
+	private static final class DigestingFileSubscriber implements Flow.Subscriber<List<ByteBuffer>> {
+		private final Path path;
+
+		private final List<MessageDigest> digests;
+
+		private Flow.Subscription subscription;
+
+		private FileChannel channel;
+
+		private IOException exception;
+
+		DigestingFileSubscriber(Path path, List<MessageDigest> digests) {
+			this.path = path;
+			this.digests = digests;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			digests.forEach(MessageDigest::reset);
+			try {
+				channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING);
+			} catch (IOException e) {
+				exception = e;
+			}
+			subscription.request(1);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> buffers) {
+			// After a failure, the remainder is drained so that the response completes.
+			if (exception == null) {
+				try {
+					for (var buffer : buffers) {
+						for (var digest : digests) {
+							digest.update(buffer.duplicate());
+						}
+						while (buffer.hasRemaining()) {
+							channel.write(buffer);
+						}
+					}
+				} catch (IOException e) {
+					exception = e;
+				}
+			}
+			subscription.request(1);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			close();
+		}
+
+		@Override
+		public void onComplete() {
+			close();
+		}
+
+		private void close() {
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					if (exception == null) {
+						exception = e;
+					}
+				}
+			}
+		}
+
+		Path getBody() {
+			if (exception != null) {
+				throw new UncheckedIOException(exception);
+			}
+			return path;
 		}
+	}
 
-		var bytes = supplier.get();
-		Files.createDirectories(path.getParent());
-		Files.write(path, bytes);
+	/**
+	 * Returns the cached content, or null if it's not cached, without any network
+	 * access.
+	 */
+	public String getCachedContent(URI uri) throws IOException {
+		var redirectedURI = redirect(uri);
+		return readCache(redirectedURI, getCacheKey(redirectedURI), Files::readString);
+	}
 
-		return bytes;
+	/**
+	 * Caches the content as if it were fetched from the URI, e.g., when it's part
+	 * of the response to a batch request.
+	 */
+	public void putContent(URI uri, String content) throws IOException {
+		var key = getCacheKey(redirect(uri));
+		var lock = cache.lock(key);
+		try {
+			cache.put(key, path -> Files.writeString(path, content));
+			accessedCacheKeys.add(key);
+		} finally {
+			lock.close();
+		}
 	}
 
 	public Path getContentCache(URI uri) throws IOException {
-		return getContent(uriMap.redirect(uri), path -> path, (path, t) -> {
-		}, BodyHandlers.ofFile(getCachePath(uri)));
+		// Installation archives need to retain their file name to determine the
+		// archive type.
+		var redirectedURI = redirect(uri);
+		var name = Path.of(redirectedURI.getPath()).getFileName().toString();
+		var key = getCacheKey(redirectedURI);
+		for (;;) {
+			var temporaryPath = cache.newTemporaryFile();
+			try {
+				getContent(redirectedURI, path -> path,
+						(path, t) -> Files.move(t, path, StandardCopyOption.REPLACE_EXISTING),
+						BodyHandlers.ofFile(temporaryPath));
+			} finally {
+				Files.deleteIfExists(temporaryPath);
+			}
+
+			if ("file".equals(redirectedURI.getScheme())) {
+				return Path.of(redirectedURI);
+			}
+			var entry = getCacheEntry(key);
+			if (entry != null) {
+				try {
+					return cache.getNamedPath(entry, name);
+				} catch (NoSuchFileException e) {
+					// Evicted concurrently so it must be fetched again.
+				}
+			}
+		}
 	}
 
 	public Document getXMLContent(URI uri) throws IOException {
-		var content = getContent(uri);
+		return parseXML(uri, getContent(uri));
+	}
+
+	public CompletableFuture<Document> getXMLContentAsync(URI uri) {
+		return getContentAsync(uri).thenApply(content -> {
+			try {
+				return parseXML(uri, content);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		});
+	}
+
+	private static Document parseXML(URI uri, String content) throws IOException {
 		try {
-			var builder = newDocumentBuilder();
-			return builder.parse(new InputSource(new StringReader(content)));
-		} catch (ParserConfigurationException | SAXException e) {
+			return XMLUtil.parse(new InputSource(new StringReader(content)));
+		} catch (SAXException e) {
 			throw new IOException(uri + " : " + e.getMessage(), e);
 		}
 	}
 
-	private boolean isCacheExpired(Path path) {
-		try {
-			var lastModifiedTime = Files.getLastModifiedTime(path);
-			var now = System.currentTimeMillis();
-			var age = now - lastModifiedTime.toMillis();
-			var ageInHours = age / 1000 / 60 / 60;
-			return ageInHours > 8;
-		} catch (IOException e) {
-			return true;
+	private CacheStore.Entry getCacheEntry(String key) {
+		var entry = cache.get(key);
+		// In offline mode, stale content is better than no content.
+		if (entry == null || !offline && isCacheExpired(entry)) {
+			return null;
 		}
+		accessedCacheKeys.add(key);
+		return entry;
+	}
+
+	private boolean isCacheExpired(CacheStore.Entry entry) {
+		var now = System.currentTimeMillis();
+		var age = now - entry.timestamp();
+		var ageInHours = age / 1000 / 60 / 60;
+		return ageInHours > 8;
 	}
 
 	protected <T> T basicGetContent(URI uri, BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
-		var request = newRequest(uri);
-		var response = httpClient.send(request, bodyHandler);
-		var statusCode = response.statusCode();
-		if (statusCode != 200) {
-			throw new ContentHandlerException(response, retryDelay);
-		}
-		return response.body();
+		return await(basicGetContentAsync(uri, bodyHandler));
+	}
+
+	protected <T> CompletableFuture<T> basicGetContentAsync(URI uri, BodyHandler<T> bodyHandler) {
+		return sendAsync(newRequest(uri), bodyHandler);
 	}
 
 	private HttpRequest newRequest(URI uri) {
 		var fragment = uri.getFragment();
 		if (fragment == null) {
-			return HttpRequest.newBuilder(uri).GET().build();
+			return HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(transport.timeout())).GET().build();
 		}
 		var baseURI = URI.create(uri.toString().replaceAll("#.*$", ""));
 		var parts = new ArrayList<>(List.of(fragment.split(",")));
 		var body = parts.remove(parts.size() - 1);
 		var headers = parts.toArray(String[]::new);
-		return HttpRequest.newBuilder(baseURI).timeout(Duration.ofSeconds(timeout)).headers(headers)
+		return HttpRequest.newBuilder(baseURI).timeout(Duration.ofSeconds(transport.timeout())).headers(headers)
 				.POST(BodyPublishers.ofString(body)).build();
 	}
 
 	protected <T> T basicHead(URI uri, BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
-		var requestBuilder = HttpRequest.newBuilder(uri).method("HEAD", BodyPublishers.noBody());
-		var request = requestBuilder.build();
-		var response = httpClient.send(request, bodyHandler);
-		var statusCode = response.statusCode();
-		if (statusCode != 200) {
-			throw new ContentHandlerException(response, retryDelay);
+		return await(basicHeadAsync(uri, bodyHandler));
+	}
+
+	protected <T> CompletableFuture<T> basicHeadAsync(URI uri, BodyHandler<T> bodyHandler) {
+		var request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(transport.timeout()))
+				.method("HEAD", BodyPublishers.noBody()).build();
+		return sendAsync(request, bodyHandler);
+	}
+
+	private <T> CompletableFuture<T> sendAsync(HttpRequest request, BodyHandler<T> bodyHandler) {
+		// Waiting for a permit occupies only a virtual thread.
+		return CompletableFuture.runAsync(requests::acquireUninterruptibly, executor)
+				.thenCompose(ignored -> httpClient.sendAsync(request, bodyHandler))
+				.whenComplete((response, throwable) -> requests.release()).thenApply(response -> {
+					if (response.statusCode() != 200) {
+						throw new CompletionException(new ContentHandlerException(response, retryDelay));
+					}
+					return response.body();
+				});
+	}
+
+	/**
+	 * Waits for the future, translating an interrupt to an
+	 * {@link InterruptedIOException}.
+	 */
+	public static <T> T get(CompletableFuture<T> future) throws IOException {
+		try {
+			return await(future);
+		} catch (InterruptedException e) {
+			throw toInterruptedIOException(e);
 		}
-		return response.body();
 	}
 
-	protected Path getCachePath404(URI uri) {
-		return getCachePath(uri, "404/");
+	private static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			throw e;
+		} catch (ExecutionException e) {
+			var cause = e.getCause();
+			if (cause instanceof UncheckedIOException uncheckedIOException) {
+				cause = uncheckedIOException.getCause();
+			}
+			if (cause instanceof IOException ioException) {
+				throw ioException;
+			}
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IOException(cause);
+		}
 	}
 
-	protected Path getCachePath(URI uri) {
-		return getCachePath(uri, "");
+	protected String getCacheKey(URI uri) {
+		return uri.toString();
 	}
 
-	private Path getCachePath(URI uri, String prefix) {
-		var decodedURI = URLDecoder.decode(uri.toString(), StandardCharsets.UTF_8);
-		var uriSegments = decodedURI.split("[:/?#&;,{}'\"]+");
-		uriSegments[uriSegments.length - 1] = "_" + uriSegments[uriSegments.length - 1];
-		var result = cache.resolve(prefix + String.join("/", uriSegments));
-		return result;
+	protected String getHeadCacheKey(URI uri) {
+		return "HEAD " + uri;
 	}
 
 	interface Reader<T> {
@@ -259,54 +721,112 @@ public class ContentHandler {
 
 	interface Writer<T> {
 		void write(Path path, T t) throws IOException;
+
+		default CacheStore.Entry put(CacheStore cache, String key, T t) throws IOException {
+			return cache.put(key, path -> write(path, t));
+		}
 	}
 
+	// A blocking request waits for the asynchronous one, so that both share the
+	// same retry policy.
 	private <T> T getContent(URI uri, Reader<T> reader, Writer<T> writer, BodyHandler<T> bodyHandler)
 			throws IOException {
-		if ("file".equals(uri.getScheme())) {
-			return reader.read(Path.of(uri));
-		}
+		return get(getContentAsync(uri, reader, writer, bodyHandler));
+	}
+
+	private <T> CompletableFuture<T> getContentAsync(URI uri, Reader<T> reader, Writer<T> writer,
+			BodyHandler<T> bodyHandler) {
+		var key = getCacheKey(uri);
+		try {
+			if ("file".equals(uri.getScheme())) {
+				return CompletableFuture.completedFuture(reader.read(Path.of(uri)));
+			}
 
-		var path = getCachePath(uri);
-		if (Files.isRegularFile(path) && !isCacheExpired(path)) {
-			return reader.read(path);
+			var cachedContent = readCache(uri, key, reader);
+			if (cachedContent != null) {
+				return CompletableFuture.completedFuture(cachedContent);
+			}
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
 		}
 
-		var path404 = getCachePath404(uri);
-		if (Files.isRegularFile(path404) && !isCacheExpired(path404)) {
-			throw new ContentHandlerException(404, uri, retryDelay);
+		if (offline) {
+			return CompletableFuture.failedFuture(new OfflineException(uri));
 		}
-		var currentRetry = retry;
-		while (!Thread.currentThread().isInterrupted()) {
+
+		return fetchAsync(uri, key, reader, writer, bodyHandler, retry, executor);
+	}
+
+	private <T> CompletableFuture<T> fetchAsync(URI uri, String key, Reader<T> reader, Writer<T> writer,
+			BodyHandler<T> bodyHandler, int retries, Executor fetchExecutor) {
+		return CompletableFuture.supplyAsync(() -> {
 			try {
-				Files.createDirectories(path.getParent());
-				var content = basicGetContent(uri, bodyHandler);
-				writer.write(path, content);
-				return content;
-			} catch (ContentHandlerException e) {
-				var statusCode = e.statusCode();
-				if (statusCode == 404) {
-					Files.createDirectories(path404.getParent());
-					Files.writeString(path404, "");
+				return fetch(uri, key, reader, writer, bodyHandler);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		}, fetchExecutor).exceptionallyCompose(throwable -> {
+			var cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+			if (cause instanceof ContentHandlerException e && retries > 0 && retryRequest(e.statusCode())) {
+				var retryAfter = e.getRetryAfter();
+				logRetry(uri, retryAfter, retries - 1);
+				return fetchAsync(uri, key, reader, writer, bodyHandler, retries - 1,
+						CompletableFuture.delayedExecutor(retryAfter, TimeUnit.SECONDS, executor));
+			}
+			return CompletableFuture.failedFuture(cause);
+		});
+	}
+
+	private <T> T fetch(URI uri, String key, Reader<T> reader, Writer<T> writer, BodyHandler<T> bodyHandler)
+			throws IOException {
+		try {
+			var lock = cache.lock(key);
+			try {
+				// Another thread or process may have fetched it while we waited for the lock.
+				cache.refresh();
+				var cachedContent = readCache(uri, key, reader);
+				if (cachedContent != null) {
+					return cachedContent;
 				}
-				if (currentRetry-- > 0 && retryRequest(statusCode)) {
-					try {
-						var retryAfter = e.getRetryAfter();
-						System.err.println("## Request to " + uri + " failed, retry again after " + retryAfter
-								+ " seconds [" + currentRetry + " retries left]");
-						TimeUnit.SECONDS.sleep(retryAfter);
-					} catch (InterruptedException e1) {
-						throw toInterruptedIOException(e1);
+
+				try {
+					var content = basicGetContent(uri, bodyHandler);
+					writer.put(cache, key, content);
+					accessedCacheKeys.add(key);
+					return content;
+				} catch (ContentHandlerException e) {
+					if (e.statusCode() == 404) {
+						cache.putMissing(key);
+						accessedCacheKeys.add(key);
 					}
-					continue;
+					throw e;
 				}
-				throw e;
+			} finally {
+				lock.close();
+			}
+		} catch (InterruptedException e) {
+			throw toInterruptedIOException(e);
+		}
+	}
 
-			} catch (InterruptedException e) {
-				throw toInterruptedIOException(e);
+	private static void logRetry(URI uri, int retryAfter, int retriesLeft) {
+		System.err.println("## Request to " + uri + " failed, retry again after " + retryAfter + " seconds ["
+				+ retriesLeft + " retries left]");
+	}
+
+	private <T> T readCache(URI uri, String key, Reader<T> reader) throws IOException {
+		var entry = getCacheEntry(key);
+		if (entry != null) {
+			if (entry.isMissing()) {
+				throw new ContentHandlerException(404, uri, retryDelay);
+			}
+			try {
+				return reader.read(cache.getPath(entry));
+			} catch (NoSuchFileException e) {
+				// Evicted concurrently so it must be fetched again.
 			}
 		}
-		throw new InterruptedIOException("Failed after " + currentRetry + " retries: " + uri);
+		return null;
 	}
 
 	private boolean retryRequest(int statusCode) {
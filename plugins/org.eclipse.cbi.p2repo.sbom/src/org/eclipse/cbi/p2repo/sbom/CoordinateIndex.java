@@ -0,0 +1,314 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.cyclonedx.exception.ParseException;
+import org.cyclonedx.model.Component;
+import org.cyclonedx.parsers.BomParserFactory;
+
+/**
+ * A compact on-disk hash table that maps the SHA-1 checksum of an artifact to
+ * its Maven coordinates, used to identify artifacts without querying the Maven
+ * Central search service.
+ * <p>
+ * The file is memory mapped and consists of a header, a table of slots, each
+ * with a SHA-1 checksum and the offset of its coordinates, using open
+ * addressing with linear probing, followed by the UTF-8 encoded coordinates.
+ * </p>
+ */
+public final class CoordinateIndex {
+
+	private static final int MAGIC = 0x47415658;
+
+	private static final int FORMAT = 1;
+
+	private static final int HEADER_SIZE = 16;
+
+	private static final int SHA1_SIZE = 20;
+
+	private static final int SLOT_SIZE = SHA1_SIZE + Integer.BYTES;
+
+	private static final Pattern MAVEN_PURL_PATTERN = Pattern.compile(
+			"pkg:maven/(?<groupId>[^/]+)/(?<artifactId>[^@/]+)@(?<version>[^?#]+)(\\?(?<qualifiers>[^#]*))?.*");
+
+	private final ByteBuffer buffer;
+
+	private final int slotMask;
+
+	private final int size;
+
+	private CoordinateIndex(ByteBuffer buffer) {
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+			throw new IllegalArgumentException("Not a coordinate index");
+		}
+		slotMask = buffer.getInt(8) - 1;
+		size = buffer.getInt(12);
+	}
+
+	public static CoordinateIndex open(Path path) throws IOException {
+		try (var channel = FileChannel.open(path)) {
+			// The mapping remains valid after the channel is closed.
+			return new CoordinateIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the Maven descriptor of the artifact with the given hex-encoded
+	 * SHA-1 checksum, or null if it's not in the index.
+	 */
+	public MavenDescriptor get(String sha1) {
+		var key = HexFormat.of().parseHex(sha1);
+		var slot = hash(key) & slotMask;
+		var candidate = new byte[SHA1_SIZE];
+		while (true) {
+			var position = HEADER_SIZE + slot * SLOT_SIZE;
+			var offset = buffer.getInt(position + SHA1_SIZE);
+			if (offset == 0) {
+				return null;
+			}
+			buffer.get(position, candidate);
+			if (Arrays.equals(candidate, key)) {
+				var length = buffer.getShort(offset) & 0xFFFF;
+				var bytes = new byte[length];
+				buffer.get(offset + Short.BYTES, bytes);
+				return parseCoordinates(new String(bytes, StandardCharsets.UTF_8));
+			}
+			slot = (slot + 1) & slotMask;
+		}
+	}
+
+	/**
+	 * Returns all entries of the index, keyed by the hex-encoded SHA-1 checksum.
+	 */
+	public Map<String, MavenDescriptor> getEntries() {
+		var result = new TreeMap<String, MavenDescriptor>();
+		var hexFormat = HexFormat.of();
+		var candidate = new byte[SHA1_SIZE];
+		for (var slot = 0; slot <= slotMask; ++slot) {
+			var position = HEADER_SIZE + slot * SLOT_SIZE;
+			if (buffer.getInt(position + SHA1_SIZE) != 0) {
+				buffer.get(position, candidate);
+				var sha1 = hexFormat.formatHex(candidate);
+				result.put(sha1, get(sha1));
+			}
+		}
+		return result;
+	}
+
+	public static void write(Map<String, MavenDescriptor> entries, Path path) throws IOException {
+		// Keep the load factor at or below one half.
+		var slotCount = Integer.highestOneBit(Math.max(1, entries.size()) * 2 - 1) << 1;
+		var slots = new byte[slotCount * SLOT_SIZE];
+		var slotBuffer = ByteBuffer.wrap(slots);
+		var coordinates = new ByteArrayOutputStream();
+		var poolOffset = HEADER_SIZE + slots.length;
+		var hexFormat = HexFormat.of();
+		for (var entry : entries.entrySet()) {
+			var key = hexFormat.parseHex(entry.getKey());
+			var slot = hash(key) & (slotCount - 1);
+			while (slotBuffer.getInt(slot * SLOT_SIZE + SHA1_SIZE) != 0) {
+				slot = (slot + 1) & (slotCount - 1);
+			}
+			slotBuffer.put(slot * SLOT_SIZE, key);
+			slotBuffer.putInt(slot * SLOT_SIZE + SHA1_SIZE, poolOffset + coordinates.size());
+			var bytes = toCoordinates(entry.getValue()).getBytes(StandardCharsets.UTF_8);
+			coordinates.write(bytes.length >> 8);
+			coordinates.write(bytes.length);
+			coordinates.write(bytes);
+		}
+
+		var temporaryPath = Files.createTempFile(path.toAbsolutePath().getParent(), "coordinate-index", ".tmp");
+		try {
+			try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT);
+				out.writeInt(slotCount);
+				out.writeInt(entries.size());
+				out.write(slots);
+				coordinates.writeTo(out);
+			}
+			Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporaryPath);
+		}
+	}
+
+	/**
+	 * Adds the entries from the given sources to the index at the given path,
+	 * creating it if necessary. A source folder is treated as a Maven repository
+	 * and any other source is treated as an SBOM, e.g., from a previous run.
+	 *
+	 * @return the number of entries in the index.
+	 */
+	public static int importSources(Path path, List<Path> sources) throws IOException {
+		var entries = Files.exists(path) ? open(path).getEntries() : new TreeMap<String, MavenDescriptor>();
+		for (var source : sources) {
+			if (Files.isDirectory(source)) {
+				importRepository(source, entries);
+			} else {
+				importSBOM(source, entries);
+			}
+		}
+		write(entries, path);
+		return entries.size();
+	}
+
+	private static void importRepository(Path repository, Map<String, MavenDescriptor> entries) throws IOException {
+		try (var paths = Files.walk(repository)) {
+			for (var jar : (Iterable<Path>) paths.filter(it -> it.toString().endsWith(".jar"))::iterator) {
+				// The layout is group/path/artifactId/version/artifactId-version[-classifier].jar
+				var relativePath = repository.relativize(jar);
+				var count = relativePath.getNameCount();
+				if (count < 4 || !Files.isRegularFile(jar)) {
+					continue;
+				}
+				var version = relativePath.getName(count - 2).toString();
+				var artifactId = relativePath.getName(count - 3).toString();
+				var prefix = artifactId + "-" + version;
+				var fileName = relativePath.getFileName().toString();
+				if (!fileName.startsWith(prefix)) {
+					continue;
+				}
+				var rest = fileName.substring(prefix.length(), fileName.length() - ".jar".length());
+				if (!rest.isEmpty() && !rest.startsWith("-")) {
+					continue;
+				}
+				var separator = relativePath.getFileSystem().getSeparator();
+				var groupId = relativePath.subpath(0, count - 3).toString().replace(separator, ".");
+				entries.put(getSHA1(jar), new MavenDescriptor(groupId, artifactId, version,
+						rest.isEmpty() ? null : rest.substring(1), "jar"));
+			}
+		}
+	}
+
+	private static String getSHA1(Path jar) throws IOException {
+		// Prefer the checksum downloaded along with the artifact.
+		var checksum = jar.resolveSibling(jar.getFileName() + ".sha1");
+		if (Files.isRegularFile(checksum)) {
+			var value = Files.readString(checksum).trim().split("\\s+", 2)[0];
+			if (value.length() == SHA1_SIZE * 2 && value.chars().allMatch(c -> Character.digit(c, 16) != -1)) {
+				return value.toLowerCase();
+			}
+		}
+		try {
+			var digest = MessageDigest.getInstance("SHA-1");
+			try (var in = new DigestInputStream(Files.newInputStream(jar), digest)) {
+				in.transferTo(OutputStream.nullOutputStream());
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void importSBOM(Path sbom, Map<String, MavenDescriptor> entries) throws IOException {
+		try {
+			var file = sbom.toFile();
+			var bom = BomParserFactory.createParser(file).parse(file);
+			importComponents(bom.getComponents(), entries);
+		} catch (ParseException e) {
+			throw new IOException(sbom + " : " + e.getMessage(), e);
+		}
+	}
+
+	private static void importComponents(List<Component> components, Map<String, MavenDescriptor> entries) {
+		if (components == null) {
+			return;
+		}
+		for (var component : components) {
+			var purl = component.getPurl();
+			var hashes = component.getHashes();
+			if (purl != null && hashes != null) {
+				var mavenDescriptor = parseMavenPURL(purl);
+				if (mavenDescriptor != null) {
+					for (var hash : hashes) {
+						if ("SHA-1".equals(hash.getAlgorithm())) {
+							entries.put(hash.getValue().toLowerCase(), mavenDescriptor);
+						}
+					}
+				}
+			}
+			importComponents(component.getComponents(), entries);
+		}
+	}
+
+	private static MavenDescriptor parseMavenPURL(String purl) {
+		var matcher = MAVEN_PURL_PATTERN.matcher(purl);
+		if (!matcher.matches()) {
+			return null;
+		}
+		String classifier = null;
+		var type = "jar";
+		var qualifiers = matcher.group("qualifiers");
+		if (qualifiers != null) {
+			for (var qualifier : qualifiers.split("&")) {
+				var parts = qualifier.split("=", 2);
+				if (parts.length == 2) {
+					var value = decode(parts[1]);
+					if ("classifier".equals(parts[0])) {
+						classifier = value;
+					} else if ("type".equals(parts[0])) {
+						type = value;
+					}
+				}
+			}
+		}
+		return new MavenDescriptor(decode(matcher.group("groupId")), decode(matcher.group("artifactId")),
+				decode(matcher.group("version")), classifier, type);
+	}
+
+	private static String decode(String value) {
+		return URLDecoder.decode(value, StandardCharsets.UTF_8);
+	}
+
+	private static String toCoordinates(MavenDescriptor mavenDescriptor) {
+		var classifier = mavenDescriptor.classifier();
+		return mavenDescriptor.groupId() + ':' + mavenDescriptor.artifactId() + ':' + mavenDescriptor.version() + ':'
+				+ mavenDescriptor.type() + (classifier == null ? "" : ":" + classifier);
+	}
+
+	private static MavenDescriptor parseCoordinates(String coordinates) {
+		var parts = coordinates.split(":", 5);
+		return new MavenDescriptor(parts[0], parts[1], parts[2], parts.length == 5 ? parts[4] : null, parts[3]);
+	}
+
+	private static int hash(byte[] sha1) {
+		// The checksum is already uniformly distributed.
+		return (sha1[0] & 0xFF) << 24 | (sha1[1] & 0xFF) << 16 | (sha1[2] & 0xFF) << 8 | (sha1[3] & 0xFF);
+	}
+}
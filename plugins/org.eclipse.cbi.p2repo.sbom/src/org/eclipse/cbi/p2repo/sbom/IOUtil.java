@@ -11,28 +11,49 @@
 package org.eclipse.cbi.p2repo.sbom;
 
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 
 public final class IOUtil {
-	private static final Pattern SUPPORTED_ARCHIVE_PATTERN = Pattern
+	public static final Pattern SUPPORTED_ARCHIVE_PATTERN = Pattern
 			.compile("(?<name>.*)\\.(?<extension>zip|tar|tar.gz)$");
 
+	private static final int MAX_BYTES_IN_FLIGHT = 64 * 1024 * 1024;
+
 	private IOUtil() {
 		throw new UnsupportedOperationException("Do not instantiate");
 	}
@@ -73,9 +94,38 @@ public final class IOUtil {
 		return interruptedIOException;
 	}
 
+	/**
+	 * Returns whether the file has exactly the given content, reading the file
+	 * incrementally.
+	 */
+	public static boolean contentEquals(byte[] bytes, Path path) throws IOException {
+		if (Files.size(path) != bytes.length) {
+			return false;
+		}
+		try (var in = Files.newInputStream(path)) {
+			var buffer = new byte[0x10000];
+			var position = 0;
+			for (int length; (length = in.read(buffer)) != -1; position += length) {
+				if (position + length > bytes.length
+						|| !Arrays.equals(buffer, 0, length, bytes, position, position + length)) {
+					return false;
+				}
+			}
+			return position == bytes.length;
+		}
+	}
+
 	public static Map<String, byte[]> getZipContents(byte[] bytes) throws IOException {
+		return getZipContents(new ByteArrayInputStream(bytes));
+	}
+
+	public static Map<String, byte[]> getZipContents(Path path) throws IOException {
+		return getZipContents(Files.newInputStream(path));
+	}
+
+	private static Map<String, byte[]> getZipContents(InputStream in) throws IOException {
 		var entries = new TreeMap<String, byte[]>();
-		try (var zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+		try (var zip = new ZipInputStream(in)) {
 			for (var entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
 				if (!entry.isDirectory()) {
 					var name = entry.getName();
@@ -86,7 +136,93 @@ public final class IOUtil {
 		}
 	}
 
-	public static Path extractInstallation(Path archive) throws IOException {
+	public static record ZipEntrySummary(long crc, long size) {
+	}
+
+	/**
+	 * Returns the CRC-32 and uncompressed size of each non-directory entry as
+	 * recorded in the zip's central directory, i.e., without inflating anything.
+	 * Returns {@code null} if the bytes are not a zip with a well-formed central
+	 * directory, or if the zip uses the zip64 extensions.
+	 */
+	public static Map<String, ZipEntrySummary> getZipDirectory(byte[] bytes) {
+		var buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		var end = bytes.length - 22;
+		var limit = Math.max(0, end - 0xFFFF);
+		while (end >= limit && buffer.getInt(end) != 0x06054b50) {
+			--end;
+		}
+		if (end < limit) {
+			return null;
+		}
+
+		var count = Short.toUnsignedInt(buffer.getShort(end + 10));
+		var offset = Integer.toUnsignedLong(buffer.getInt(end + 16));
+		if (count == 0xFFFF || offset == 0xFFFFFFFFL) {
+			return null;
+		}
+
+		var entries = new TreeMap<String, ZipEntrySummary>();
+		try {
+			var position = (int) offset;
+			for (var i = 0; i < count; ++i) {
+				if (buffer.getInt(position) != 0x02014b50) {
+					return null;
+				}
+				var crc = Integer.toUnsignedLong(buffer.getInt(position + 16));
+				var compressedSize = Integer.toUnsignedLong(buffer.getInt(position + 20));
+				var size = Integer.toUnsignedLong(buffer.getInt(position + 24));
+				var nameLength = Short.toUnsignedInt(buffer.getShort(position + 28));
+				var extraLength = Short.toUnsignedInt(buffer.getShort(position + 30));
+				var commentLength = Short.toUnsignedInt(buffer.getShort(position + 32));
+				if (size == 0xFFFFFFFFL || compressedSize == 0xFFFFFFFFL) {
+					return null;
+				}
+				var name = new String(bytes, position + 46, nameLength, StandardCharsets.UTF_8);
+				if (!name.endsWith("/")) {
+					entries.put(name, new ZipEntrySummary(crc, size));
+				}
+				position += 46 + nameLength + extraLength + commentLength;
+			}
+		} catch (IndexOutOfBoundsException e) {
+			return null;
+		}
+		return entries;
+	}
+
+	/**
+	 * Returns the CRC-32 and uncompressed size of each non-directory entry as
+	 * recorded in the zip file's central directory, or {@code null} if the file
+	 * is not a zip.
+	 */
+	public static Map<String, ZipEntrySummary> getZipDirectory(Path path) throws IOException {
+		try (var zip = new ZipFile(path.toFile())) {
+			var entries = new TreeMap<String, ZipEntrySummary>();
+			for (var zipEntries = zip.entries(); zipEntries.hasMoreElements();) {
+				var entry = zipEntries.nextElement();
+				if (!entry.isDirectory()) {
+					entries.put(entry.getName(), new ZipEntrySummary(entry.getCrc(), entry.getSize()));
+				}
+			}
+			return entries;
+		} catch (ZipException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Receives the progress of a long-running operation, in bytes.
+	 */
+	@FunctionalInterface
+	public interface ProgressListener {
+		void progress(long done, long total);
+	}
+
+	/**
+	 * Extracts the archive into a sibling folder, unless already extracted, using
+	 * the given number of threads to write the files.
+	 */
+	public static Path extractInstallation(Path archive, int threads, ProgressListener listener) throws IOException {
 		var fileName = archive.getFileName().toString();
 		var matcher = SUPPORTED_ARCHIVE_PATTERN.matcher(fileName);
 		if (!matcher.matches()) {
@@ -96,29 +232,50 @@ public final class IOUtil {
 		var extension = matcher.group("extension");
 		var target = archive.resolveSibling(baseName);
 		if (!Files.isDirectory(target)) {
-			Files.createDirectory(target);
-			switch (extension) {
-			case "zip": {
-				try (var in = Files.newInputStream(archive)) {
-					extractZip(in, target);
-				}
-				break;
-			}
-			case "tar": {
-				try (var in = Files.newInputStream(archive)) {
-					extractTar(in, target);
+			// Extract into a temporary folder that is renamed once complete so that
+			// concurrent processes never see a partial extraction.
+			var temporaryTarget = Files.createTempDirectory(archive.getParent(), baseName + ".");
+			try {
+				// Closing the executor waits for the running tasks.
+				try (var executor = Executors.newFixedThreadPool(threads)) {
+					try {
+						switch (extension) {
+						case "zip": {
+							extractZip(archive, temporaryTarget, executor, listener);
+							break;
+						}
+						case "tar": {
+							extractTar(archive, false, temporaryTarget, executor, listener);
+							break;
+						}
+						case "tar.gz": {
+							extractTar(archive, true, temporaryTarget, executor, listener);
+							break;
+						}
+						}
+					} catch (IOException | RuntimeException e) {
+						executor.shutdownNow();
+						throw e;
+					}
 				}
-				break;
-			}
-			case "tar.gz": {
-				try (InputStream in = new GzipCompressorInputStream(Files.newInputStream(archive))) {
-					extractTar(in, target);
+				Files.move(temporaryTarget, target, StandardCopyOption.ATOMIC_MOVE);
+			} catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+				// Another process completed the extraction first.
+			} finally {
+				if (Files.isDirectory(temporaryTarget)) {
+					delete(temporaryTarget);
 				}
-				break;
-			}
 			}
 		}
 
+		return getInstallationRoot(target);
+	}
+
+	/**
+	 * Returns the single folder of an extracted installation archive, or the
+	 * target folder itself if the archive has several root folders.
+	 */
+	public static Path getInstallationRoot(Path target) throws IOException {
 		try (var targetContents = Files.newDirectoryStream(target, Files::isDirectory)) {
 			var paths = new ArrayList<Path>();
 			for (Path path : targetContents) {
@@ -131,29 +288,133 @@ public final class IOUtil {
 		}
 	}
 
-	private static void extractZip(InputStream in, Path target) throws IOException {
-		try (var zip = new ZipInputStream(in)) {
-			for (var entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
-				var path = target.resolve(entry.getName());
+	// The central directory gives random access to the entries, so they're
+	// inflated and written concurrently.
+	private static void extractZip(Path archive, Path target, ExecutorService executor, ProgressListener listener)
+			throws IOException {
+		try (var zip = new ZipFile(archive.toFile())) {
+			var entries = Collections.list(zip.entries());
+			var total = entries.stream().mapToLong(it -> Math.max(0, it.getSize())).sum();
+			var done = new AtomicLong();
+			var futures = new ArrayList<Future<?>>();
+			for (var entry : entries) {
+				var path = resolveEntry(target, entry.getName());
 				if (entry.isDirectory()) {
-					Files.createDirectory(path);
+					Files.createDirectories(path);
 				} else {
-					Files.copy(zip, path);
+					Files.createDirectories(path.getParent());
+					futures.add(executor.submit(() -> {
+						try (var in = zip.getInputStream(entry)) {
+							Files.copy(in, path);
+						}
+						listener.progress(done.addAndGet(Math.max(0, entry.getSize())), total);
+						return null;
+					}));
 				}
 			}
+			await(futures);
 		}
 	}
 
-	private static void extractTar(InputStream in, Path target) throws IOException {
-		try (var tar = new TarArchiveInputStream(in)) {
+	// Decompression is inherently sequential, so the files are written
+	// concurrently while the next entries are decompressed, with a bound on the
+	// content in flight.
+	private static void extractTar(Path archive, boolean compressed, Path target, ExecutorService executor,
+			ProgressListener listener) throws IOException {
+		var total = Files.size(archive);
+		var inFlight = new Semaphore(MAX_BYTES_IN_FLIGHT);
+		var futures = new ArrayList<Future<?>>();
+		try (var counter = new CountingInputStream(Files.newInputStream(archive));
+				var tar = new TarArchiveInputStream(compressed ? new GzipCompressorInputStream(counter) : counter)) {
 			for (var entry = tar.getNextEntry(); entry != null; entry = tar.getNextEntry()) {
-				var path = target.resolve(entry.getName());
+				var path = resolveEntry(target, entry.getName());
 				if (entry.isDirectory()) {
-					Files.createDirectory(path);
+					Files.createDirectories(path);
 				} else {
-					Files.copy(tar, path);
+					Files.createDirectories(path.getParent());
+					var size = entry.getSize();
+					if (size > MAX_BYTES_IN_FLIGHT) {
+						Files.copy(tar, path);
+					} else {
+						inFlight.acquire((int) size);
+						var bytes = tar.readNBytes((int) size);
+						futures.add(executor.submit(() -> {
+							try {
+								Files.write(path, bytes, StandardOpenOption.CREATE_NEW);
+							} finally {
+								inFlight.release(bytes.length);
+							}
+							return null;
+						}));
+					}
+					listener.progress(counter.getCount(), total);
 				}
 			}
+		} catch (InterruptedException e) {
+			throw toInterruptedIOException(e);
+		}
+		await(futures);
+		// The padding at the end of the archive is never read as part of an entry.
+		listener.progress(total, total);
+	}
+
+	private static Path resolveEntry(Path target, String name) throws IOException {
+		var path = target.resolve(name).normalize();
+		if (!path.startsWith(target)) {
+			throw new IOException("Archive entry outside of the target folder: " + name);
+		}
+		return path;
+	}
+
+	private static void await(List<Future<?>> futures) throws IOException {
+		try {
+			for (var future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			throw toInterruptedIOException(e);
+		}
+	}
+
+	private static final class CountingInputStream extends FilterInputStream {
+		private long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			var result = super.read();
+			if (result != -1) {
+				++count;
+			}
+			return result;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			var result = super.read(b, off, len);
+			if (result > 0) {
+				count += result;
+			}
+			return result;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			var result = super.skip(n);
+			count += result;
+			return result;
+		}
+
+		long getCount() {
+			return count;
 		}
 	}
 }
\ No newline at end of file
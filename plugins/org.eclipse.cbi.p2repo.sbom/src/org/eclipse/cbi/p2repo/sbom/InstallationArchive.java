@@ -0,0 +1,266 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.apache.commons.compress.archivers.tar.TarFile;
+
+/**
+ * Provides random access to the files of an installation archive so that an
+ * installation can be analyzed without extracting it. Only the metadata needed
+ * by p2, i.e., the configuration, the profile registry and the artifact
+ * repository index, is extracted, while the artifacts in the plugins and
+ * features folders are read directly from the archive.
+ * <p>
+ * A zip is accessed via the zip file system and a tar via an index of the
+ * offset of each file. A compressed tar has no random access so it's not
+ * supported. The metadata is extracted into a temporary folder of this run
+ * that is deleted when the archive is closed.
+ * </p>
+ */
+public final class InstallationArchive implements Closeable {
+
+	private static final Pattern PAYLOAD_PATTERN = Pattern.compile("(.*/)?(plugins|features)/.+");
+
+	private interface Content {
+		InputStream open() throws IOException;
+	}
+
+	private final Path archive;
+
+	private final String baseName;
+
+	private final NavigableMap<String, Content> files = new TreeMap<>();
+
+	private final List<Closeable> resources = new ArrayList<>();
+
+	private final Map<String, Boolean> extractedFolders = new ConcurrentHashMap<>();
+
+	private FileChannel channel;
+
+	private Path target;
+
+	private InstallationArchive(Path archive, String baseName) {
+		this.archive = archive;
+		this.baseName = baseName;
+	}
+
+	/**
+	 * Returns whether the archive supports random access, i.e., whether it's a zip
+	 * or an uncompressed tar, and can be opened.
+	 */
+	public static boolean isRandomAccess(Path archive) {
+		var matcher = IOUtil.SUPPORTED_ARCHIVE_PATTERN.matcher(archive.getFileName().toString());
+		return matcher.matches() && !"tar.gz".equals(matcher.group("extension"));
+	}
+
+	public static InstallationArchive open(Path archive) throws IOException {
+		var matcher = IOUtil.SUPPORTED_ARCHIVE_PATTERN.matcher(archive.getFileName().toString());
+		if (!matcher.matches() || "tar.gz".equals(matcher.group("extension"))) {
+			throw new IllegalArgumentException("Unsupported archive format");
+		}
+		var installationArchive = new InstallationArchive(archive.toAbsolutePath(), matcher.group("name"));
+		try {
+			if ("zip".equals(matcher.group("extension"))) {
+				installationArchive.indexZip();
+			} else {
+				installationArchive.indexTar();
+			}
+			return installationArchive;
+		} catch (IOException | RuntimeException e) {
+			installationArchive.close();
+			throw e;
+		}
+	}
+
+	private void indexZip() throws IOException {
+		var fileSystem = FileSystems.newFileSystem(archive);
+		resources.add(fileSystem);
+		var root = fileSystem.getPath("/");
+		try (var paths = Files.walk(root)) {
+			for (var path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+				files.put(root.relativize(path).toString(), () -> Files.newInputStream(path));
+			}
+		}
+	}
+
+	private void indexTar() throws IOException {
+		try (var tar = new TarFile(archive)) {
+			for (var entry : tar.getEntries()) {
+				if (entry.isFile()) {
+					putRegion(entry.getName(), entry.getDataOffset(), entry.getSize());
+				}
+			}
+		}
+		openChannel(archive);
+	}
+
+	private void putRegion(String name, long offset, long size) {
+		files.put(normalize(name), () -> new RegionInputStream(offset, offset + size));
+	}
+
+	private void openChannel(Path path) throws IOException {
+		channel = FileChannel.open(path);
+		resources.add(channel);
+	}
+
+	private static String normalize(String name) {
+		return name.replaceFirst("^(\\./|/)+", "");
+	}
+
+	/**
+	 * Returns whether the archive contains a p2 artifact repository index. Without
+	 * one, p2 would need to scan the artifact folders.
+	 */
+	public boolean hasArtifactRepository() {
+		return files.keySet().stream().anyMatch(it -> it.matches("(.*/)?artifacts\\.(xml|jar)"));
+	}
+
+	/**
+	 * Extracts the metadata into a temporary folder that's private to this run and
+	 * that's deleted when the archive is closed, and returns the root folder of
+	 * the installation. Nothing is left in the folder of the archive, which may be
+	 * in the cache.
+	 */
+	public Path extractMetadata() throws IOException {
+		var metadataTarget = Files.createTempDirectory(baseName + ".");
+		resources.add(() -> IOUtil.delete(metadataTarget));
+		extract(metadataTarget, it -> !PAYLOAD_PATTERN.matcher(it).matches());
+		target = metadataTarget;
+		return IOUtil.getInstallationRoot(metadataTarget);
+	}
+
+	/**
+	 * Returns the content of the file of the archive corresponding to the given
+	 * path in the metadata folder, or null if there is no such file. A folder,
+	 * e.g., of a folder-shaped bundle, is extracted into place instead so that p2
+	 * can read it.
+	 */
+	public byte[] read(Path path) throws IOException {
+		if (target == null || !path.startsWith(target)) {
+			return null;
+		}
+		var name = target.relativize(path).toString().replace(File.separatorChar, '/');
+		var content = files.get(name);
+		if (content != null) {
+			try (var in = content.open()) {
+				return in.readAllBytes();
+			}
+		}
+
+		var prefix = name + "/";
+		var next = files.ceilingKey(prefix);
+		if (next != null && next.startsWith(prefix)) {
+			try {
+				extractedFolders.computeIfAbsent(prefix, it -> {
+					try {
+						extract(target, entry -> entry.startsWith(prefix));
+						return true;
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+		return null;
+	}
+
+	private void extract(Path folder, Predicate<String> filter) throws IOException {
+		for (var entry : files.entrySet()) {
+			var name = entry.getKey();
+			if (filter.test(name)) {
+				var path = folder.resolve(name).normalize();
+				if (!path.startsWith(folder)) {
+					throw new IOException("Archive entry outside of the target folder: " + name);
+				}
+				Files.createDirectories(path.getParent());
+				try (var in = entry.getValue().open()) {
+					Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		IOException exception = null;
+		for (var resource : resources.reversed()) {
+			try {
+				resource.close();
+			} catch (IOException e) {
+				if (exception == null) {
+					exception = e;
+				} else {
+					exception.addSuppressed(e);
+				}
+			}
+		}
+		resources.clear();
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	// Positional reads never change the channel's position so concurrent reads
+	// are safe.
+	private final class RegionInputStream extends InputStream {
+		private long position;
+
+		private final long end;
+
+		RegionInputStream(long position, long end) {
+			this.position = position;
+			this.end = end;
+		}
+
+		@Override
+		public int read() throws IOException {
+			var buffer = new byte[1];
+			return read(buffer, 0, 1) == 1 ? buffer[0] & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (position >= end) {
+				return -1;
+			}
+			var result = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+			if (result > 0) {
+				position += result;
+			}
+			return result;
+		}
+	}
+}
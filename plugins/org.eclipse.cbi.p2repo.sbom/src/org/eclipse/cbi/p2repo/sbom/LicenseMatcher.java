@@ -0,0 +1,254 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Matches license fingerprints, along with {@code SPDX-License-Identifier}
+ * declarations, in a single pass over the bytes of a file using an Aho-Corasick
+ * automaton.
+ * <p>
+ * The text is normalized while it's scanned such that each run of whitespace and
+ * {@code *} characters, as used by comment blocks, matches a single space in a
+ * fingerprint. An anchored fingerprint matches only at the start of the text.
+ * </p>
+ */
+public final class LicenseMatcher {
+
+	private static final byte[] SPDX_ID = "SPDX-License-Identifier:".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] WITH = "with".getBytes(StandardCharsets.US_ASCII);
+
+	public static record Fingerprint(String text, boolean anchored, String url, String name) {
+		/**
+		 * Parses a line of the form {@code url<tab>name<tab>text} where a text
+		 * starting with {@code ^} is anchored.
+		 */
+		public static Fingerprint parse(String line) {
+			var parts = line.split("\t", 3);
+			if (parts.length != 3) {
+				throw new IllegalArgumentException("Expecting url<tab>name<tab>text: " + line);
+			}
+			var text = parts[2];
+			var anchored = text.startsWith("^");
+			return new Fingerprint(anchored ? text.substring(1) : text, anchored, parts[0], parts[1]);
+		}
+	}
+
+	/**
+	 * The matched fingerprints are in the order in which they were specified, and
+	 * the SPDX identifiers are in the order in which they occur.
+	 */
+	public static record Result(List<Fingerprint> fingerprints, List<String> spdxIds) {
+	}
+
+	private final List<Fingerprint> fingerprints;
+
+	// The pattern with index fingerprints.size() is SPDX_ID.
+	private final int[] patternLengths;
+
+	private final int[][] transitions;
+
+	private final int[][] outputs;
+
+	public LicenseMatcher(List<Fingerprint> fingerprints) {
+		this.fingerprints = List.copyOf(fingerprints);
+
+		var patterns = new ArrayList<byte[]>();
+		for (var fingerprint : fingerprints) {
+			patterns.add(normalize(fingerprint.text()));
+		}
+		patterns.add(SPDX_ID);
+		patternLengths = patterns.stream().mapToInt(it -> it.length).toArray();
+
+		// Build the trie.
+		var trie = new ArrayList<int[]>();
+		var patternOutputs = new ArrayList<BitSet>();
+		trie.add(newState());
+		patternOutputs.add(new BitSet());
+		for (var i = 0; i < patterns.size(); ++i) {
+			var state = 0;
+			for (var b : patterns.get(i)) {
+				var next = trie.get(state)[b & 0xFF];
+				if (next == -1) {
+					next = trie.size();
+					trie.get(state)[b & 0xFF] = next;
+					trie.add(newState());
+					patternOutputs.add(new BitSet());
+				}
+				state = next;
+			}
+			patternOutputs.get(state).set(i);
+		}
+
+		// Complete the transitions using the failure links, breadth first.
+		var failures = new int[trie.size()];
+		var queue = new ArrayDeque<Integer>();
+		var root = trie.get(0);
+		for (var c = 0; c < 256; ++c) {
+			if (root[c] == -1) {
+				root[c] = 0;
+			} else {
+				failures[root[c]] = 0;
+				queue.add(root[c]);
+			}
+		}
+		while (!queue.isEmpty()) {
+			var state = queue.remove();
+			var stateTransitions = trie.get(state);
+			patternOutputs.get(state).or(patternOutputs.get(failures[state]));
+			for (var c = 0; c < 256; ++c) {
+				var next = stateTransitions[c];
+				var failureNext = trie.get(failures[state])[c];
+				if (next == -1) {
+					stateTransitions[c] = failureNext;
+				} else {
+					failures[next] = failureNext;
+					queue.add(next);
+				}
+			}
+		}
+
+		transitions = trie.toArray(int[][]::new);
+		outputs = patternOutputs.stream().map(it -> it.stream().toArray()).toArray(int[][]::new);
+	}
+
+	public static List<Fingerprint> load(Path path) throws IOException {
+		var result = new ArrayList<Fingerprint>();
+		for (var line : Files.readAllLines(path)) {
+			if (!line.isBlank() && !line.startsWith("#")) {
+				result.add(Fingerprint.parse(line));
+			}
+		}
+		return result;
+	}
+
+	public Result match(byte[] bytes) {
+		var matched = new BitSet();
+		var spdxIds = new ArrayList<String>();
+		var state = 0;
+		var position = 0;
+		var pendingSpace = false;
+		for (var i = 0; i < bytes.length; ++i) {
+			var b = bytes[i];
+			if (isSeparator(b)) {
+				// Leading separators are ignored so anchored fingerprints can match.
+				pendingSpace = position != 0;
+				continue;
+			}
+
+			if (pendingSpace) {
+				pendingSpace = false;
+				state = transitions[state][' '];
+				++position;
+				collect(state, position, i, bytes, matched, spdxIds);
+			}
+
+			state = transitions[state][b & 0xFF];
+			++position;
+			collect(state, position, i + 1, bytes, matched, spdxIds);
+		}
+
+		var result = new ArrayList<Fingerprint>();
+		for (var i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+			result.add(fingerprints.get(i));
+		}
+		return new Result(result, spdxIds);
+	}
+
+	private void collect(int state, int position, int end, byte[] bytes, BitSet matched, List<String> spdxIds) {
+		for (var pattern : outputs[state]) {
+			if (pattern == fingerprints.size()) {
+				var spdxId = extractSPDXId(bytes, end);
+				if (spdxId != null) {
+					spdxIds.add(spdxId);
+				}
+			} else if (!fingerprints.get(pattern).anchored() || position == patternLengths[pattern]) {
+				matched.set(pattern);
+			}
+		}
+	}
+
+	// Equivalent to SPDX-License-Identifier:\s((with\r?\n|[^\r\n"\\|#])+)
+	private static String extractSPDXId(byte[] bytes, int start) {
+		if (start >= bytes.length || !isWhitespace(bytes[start])) {
+			return null;
+		}
+		var begin = start + 1;
+		var end = begin;
+		while (end < bytes.length) {
+			if (startsWith(bytes, end, WITH)) {
+				var next = end + WITH.length;
+				if (next < bytes.length && bytes[next] == '\r') {
+					++next;
+				}
+				if (next < bytes.length && bytes[next] == '\n') {
+					end = next + 1;
+					continue;
+				}
+			}
+			var b = bytes[end];
+			if (b == '\r' || b == '\n' || b == '"' || b == '\\' || b == '|' || b == '#') {
+				break;
+			}
+			++end;
+		}
+		if (end == begin) {
+			return null;
+		}
+		return new String(bytes, begin, end - begin, StandardCharsets.UTF_8).trim();
+	}
+
+	private static boolean startsWith(byte[] bytes, int offset, byte[] prefix) {
+		return offset + prefix.length <= bytes.length
+				&& Arrays.equals(bytes, offset, offset + prefix.length, prefix, 0, prefix.length);
+	}
+
+	private static byte[] normalize(String text) {
+		var result = new StringBuilder();
+		var pendingSpace = false;
+		for (var c : text.toCharArray()) {
+			if (c < 128 && isSeparator((byte) c)) {
+				pendingSpace = !result.isEmpty();
+			} else {
+				if (pendingSpace) {
+					result.append(' ');
+					pendingSpace = false;
+				}
+				result.append(c);
+			}
+		}
+		return result.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static boolean isSeparator(byte b) {
+		return b == '*' || isWhitespace(b);
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f' || b == 0x0B;
+	}
+
+	private static int[] newState() {
+		var state = new int[256];
+		Arrays.fill(state, -1);
+		return state;
+	}
+}
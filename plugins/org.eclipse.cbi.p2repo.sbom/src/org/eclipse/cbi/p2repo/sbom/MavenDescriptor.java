@@ -10,11 +10,6 @@
  */
 package org.eclipse.cbi.p2repo.sbom;
 
-import static org.eclipse.cbi.p2repo.sbom.BOMUtil.computeHash;
-import static org.eclipse.cbi.p2repo.sbom.XMLUtil.evaluate;
-import static org.eclipse.cbi.p2repo.sbom.XMLUtil.newDocumentBuilder;
-
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.util.LinkedHashMap;
@@ -26,13 +21,9 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 
-import javax.xml.parsers.ParserConfigurationException;
-
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
 import org.json.JSONObject;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 public final record MavenDescriptor(String groupId, String artifactId, String version, String classifier, String type) {
 
@@ -41,14 +32,19 @@ public final record MavenDescriptor(String groupId, String artifactId, String ve
 	private static final Pattern JAR_ARTIFACT_PATTERN = Pattern
 			.compile("(.*/)?(?<artifactId>[^-]+)-(?<version>([0-9.]+[^-]+)?)(-(?<classifier>[^-0-9]+))?\\.jar");
 
-	public static MavenDescriptor create(IInstallableUnit iu, IArtifactDescriptor artifactDescriptor, byte[] bytes,
-			boolean queryCentral, ContentHandler contentHandler) {
+	public static MavenDescriptor create(IInstallableUnit iu, IArtifactDescriptor artifactDescriptor,
+			ArtifactContent content, boolean queryCentral, ContentHandler contentHandler,
+			CoordinateIndex coordinateIndex) {
 		var mavenDescriptor = create(artifactDescriptor.getProperties());
 		if (mavenDescriptor == null) {
 			mavenDescriptor = create(iu.getProperties());
 		}
-		if (mavenDescriptor == null && bytes.length != 0) {
-			mavenDescriptor = createFromBytes(bytes, queryCentral, contentHandler);
+		try {
+			if (mavenDescriptor == null && !content.isEmpty()) {
+				mavenDescriptor = createFromContent(content, queryCentral, contentHandler, coordinateIndex);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		}
 		return mavenDescriptor;
 	}
@@ -88,41 +84,35 @@ public final record MavenDescriptor(String groupId, String artifactId, String ve
 	}
 
 	public static MavenDescriptor createFromPOM(byte[] bytes) {
-		try {
-			var builder = newDocumentBuilder();
-			var document = builder.parse(new InputSource(new ByteArrayInputStream(bytes)));
-			var groupIds = evaluate(document,
-					"/pom:project/pom:groupId|/project/groupId|/pom:project/pom:parent/pom:groupId|project/parent/groupId");
-			if (groupIds.size() > 0) {
-				var groupId = groupIds.get(groupIds.size() - 1).getTextContent();
-				var artifactIds = evaluate(document, "/pom:project/pom:artifactId|/project/artifactId");
-				var versions = evaluate(document, "/pom:project/pom:version|/project/version");
-				if (!artifactIds.isEmpty() && !versions.isEmpty()) {
-					return new MavenDescriptor(groupId, artifactIds.get(0).getTextContent(),
-							versions.get(0).getTextContent(), null, "jar");
-				}
+		var pom = POMInfo.parse(bytes);
+		if (pom != null) {
+			// The groupId and version are inherited from the parent if not specified.
+			var groupId = pom.groupId() != null ? pom.groupId() : pom.parentGroupId();
+			var version = pom.version() != null ? pom.version() : pom.parentVersion();
+			if (groupId != null && pom.artifactId() != null && version != null) {
+				return new MavenDescriptor(groupId, pom.artifactId(), version, null, "jar");
 			}
-		} catch (RuntimeException ex) {
-			throw ex;
-		} catch (ParserConfigurationException | SAXException | IOException ex) {
-			throw new RuntimeException(ex);
 		}
 		return null;
 	}
 
-	public static MavenDescriptor createFromBytes(byte[] bytes, boolean queryCentral, ContentHandler contentHandler) {
-		try (var stream = new JarInputStream(new ByteArrayInputStream(bytes))) {
+	public static MavenDescriptor createFromBytes(byte[] bytes, boolean queryCentral, ContentHandler contentHandler,
+			CoordinateIndex coordinateIndex) {
+		return createFromContent(ArtifactContent.of(bytes), queryCentral, contentHandler, coordinateIndex);
+	}
+
+	public static MavenDescriptor createFromContent(ArtifactContent content, boolean queryCentral,
+			ContentHandler contentHandler, CoordinateIndex coordinateIndex) {
+		try (var stream = new JarInputStream(content.openStream())) {
 			ZipEntry entry;
 			while ((entry = stream.getNextEntry()) != null) {
 				var name = entry.getName();
 				if (name.startsWith("META-INF/maven/") && name.endsWith("pom.properties")) {
 					var properties = new Properties();
 					properties.load(stream);
-					var artifactId = properties.getProperty("artifactId");
-					var groupId = properties.getProperty("groupId");
-					var version = properties.getProperty("version");
-					if (artifactId != null && groupId != null && version != null) {
-						return new MavenDescriptor(groupId, artifactId, version, null, "jar");
+					var mavenDescriptor = createFromPOMProperties(properties);
+					if (mavenDescriptor != null) {
+						return mavenDescriptor;
 					}
 				}
 			}
@@ -130,10 +120,23 @@ public final record MavenDescriptor(String groupId, String artifactId, String ve
 			throw new RuntimeException(e);
 		}
 
+		// The local index is consulted before any remote search.
+		String sha1Hash;
+		try {
+			sha1Hash = queryCentral || coordinateIndex != null ? content.computeHash("SHA-1") : null;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		if (coordinateIndex != null) {
+			var mavenDescriptor = coordinateIndex.get(sha1Hash);
+			if (mavenDescriptor != null) {
+				return mavenDescriptor;
+			}
+		}
+
 		if (queryCentral) {
 			// This is not the end we can try to query maven central
 			try {
-				var sha1Hash = computeHash("SHA-1", bytes);
 				var query = "https://central.sonatype.com/solrsearch/select?q=1:" + sha1Hash + "&wt=json";
 				var queryResult = contentHandler.getContent(URI.create(query));
 				var jsonObject = new JSONObject(queryResult);
@@ -152,6 +155,16 @@ public final record MavenDescriptor(String groupId, String artifactId, String ve
 		return null;
 	}
 
+	public static MavenDescriptor createFromPOMProperties(Properties properties) {
+		var artifactId = properties.getProperty("artifactId");
+		var groupId = properties.getProperty("groupId");
+		var version = properties.getProperty("version");
+		if (artifactId != null && groupId != null && version != null) {
+			return new MavenDescriptor(groupId, artifactId, version, null, "jar");
+		}
+		return null;
+	}
+
 	public static MavenDescriptor create(Map<String, String> properties) {
 		var mavenGroupId = properties.get("maven-groupId");
 		if (mavenGroupId == null) {
@@ -199,9 +212,16 @@ public final record MavenDescriptor(String groupId, String artifactId, String ve
 		return toURI((classifier == null ? "" : '-' + classifier) + "." + type);
 	}
 
+	public URI toArtifactChecksumURI(String extension) {
+		return URI.create(toArtifactURI() + "." + extension);
+	}
+
 	public URI toClearlyDefinedURI() {
-		return URI.create("https://api.clearlydefined.io/definitions/maven/mavencentral/" + groupId + "/" + artifactId
-				+ "/" + version);
+		return URI.create("https://api.clearlydefined.io/definitions/" + toClearlyDefinedCoordinates());
+	}
+
+	public String toClearlyDefinedCoordinates() {
+		return "maven/mavencentral/" + groupId + "/" + artifactId + "/" + version;
 	}
 
 	public String mavenPURL() {
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves Maven Central URIs to the files of a chain of local repositories with
+ * the same layout, e.g., the local Maven repository and file-based mirrors, such
+ * that artifacts available locally are never fetched remotely.
+ */
+public final class MavenResolver {
+
+	private static final URI MAVEN_CENTRAL = URI.create(MavenDescriptor.MAVEN_CENTRAL_URI);
+
+	private final List<Path> repositories;
+
+	public MavenResolver(List<Path> repositories) {
+		this.repositories = repositories.stream().map(it -> it.toAbsolutePath().normalize()).toList();
+	}
+
+	/**
+	 * Returns the local repository of the current user, as used by Maven.
+	 */
+	public static Path getLocalRepository() {
+		var localRepository = System.getProperty("maven.repo.local");
+		return localRepository != null ? Path.of(localRepository)
+				: Path.of(System.getProperty("user.home"), ".m2", "repository");
+	}
+
+	public static MavenResolver create(boolean local, List<String> mirrors) {
+		var repositories = new ArrayList<Path>();
+		if (local) {
+			repositories.add(getLocalRepository());
+		}
+		for (var mirror : mirrors) {
+			repositories.add(mirror.startsWith("file:") ? Path.of(URI.create(mirror)) : Path.of(mirror));
+		}
+		return new MavenResolver(repositories);
+	}
+
+	/**
+	 * Returns the file URI of the first local copy of the given Maven Central
+	 * resource, or null if it's not available locally.
+	 */
+	public URI resolve(URI uri) {
+		if (repositories.isEmpty()) {
+			return null;
+		}
+		var relativeURI = MAVEN_CENTRAL.relativize(uri);
+		if (relativeURI.isAbsolute() || relativeURI.getRawQuery() != null || relativeURI.getRawFragment() != null) {
+			return null;
+		}
+		var relativePath = relativeURI.getPath();
+		for (var repository : repositories) {
+			var path = repository.resolve(relativePath).normalize();
+			if (path.startsWith(repository) && Files.isRegularFile(path)) {
+				return path.toUri();
+			}
+		}
+		return null;
+	}
+}
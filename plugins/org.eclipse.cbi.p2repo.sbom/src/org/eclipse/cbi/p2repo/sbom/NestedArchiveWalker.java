@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom;
+
+import static org.eclipse.cbi.p2repo.sbom.BOMUtil.addHashes;
+import static org.eclipse.cbi.p2repo.sbom.BOMUtil.createJarComponent;
+import static org.eclipse.cbi.p2repo.sbom.BOMUtil.createMessageDigests;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+import org.cyclonedx.model.Component;
+
+/**
+ * Walks the archives nested within an archive, recursively up to the maximum
+ * depth, creating a subcomponent for each. Each nested archive is streamed
+ * rather than buffered, computing its hashes while it's being read. The total
+ * bytes read from nested archives is limited to guard against pathological
+ * archives. Each byte is counted once, by the innermost archive being read, so
+ * the bytes of an enclosing archive that hold a nested archive count only as
+ * the nested archive's bytes.
+ */
+public final class NestedArchiveWalker {
+
+	private static final Pattern NESTED_ARCHIVE_PATTERN = Pattern.compile(".*\\.(jar|war|ear)$");
+
+	private static final Pattern POM_PROPERTIES_PATTERN = Pattern
+			.compile("META-INF/maven/[^/]+/[^/]+/pom.properties");
+
+	public static class LimitException extends IOException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Identifies a nested archive from the descriptors of all its pom.properties,
+	 * of which there are several in a shaded jar.
+	 */
+	public interface Identifier {
+		void identify(Component component, List<MavenDescriptor> mavenDescriptors) throws IOException;
+	}
+
+	private final int maxDepth;
+
+	private final long limit;
+
+	private final Identifier identifier;
+
+	private long total;
+
+	// The depth of the innermost nested archive being read.
+	private int reading;
+
+	public NestedArchiveWalker(int maxDepth, long limit, Identifier identifier) {
+		this.maxDepth = maxDepth;
+		this.limit = limit;
+		this.identifier = identifier;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public void walk(Component component, InputStream in) throws IOException {
+		walk(component, new ZipInputStream(in), 1);
+	}
+
+	private List<MavenDescriptor> walk(Component parent, ZipInputStream zip, int depth) throws IOException {
+		var mavenDescriptors = new ArrayList<MavenDescriptor>();
+		for (var entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+			var name = entry.getName();
+			if (entry.isDirectory()) {
+				continue;
+			}
+			if (POM_PROPERTIES_PATTERN.matcher(name).matches()) {
+				var properties = new Properties();
+				properties.load(zip);
+				var mavenDescriptor = MavenDescriptor.createFromPOMProperties(properties);
+				if (mavenDescriptor != null) {
+					mavenDescriptors.add(mavenDescriptor);
+				}
+			} else if (depth <= maxDepth && NESTED_ARCHIVE_PATTERN.matcher(name).matches()) {
+				walkNestedArchive(parent, name, zip, depth);
+			}
+		}
+		return mavenDescriptors;
+	}
+
+	private void walkNestedArchive(Component parent, String path, InputStream in, int depth) throws IOException {
+		var digests = createMessageDigests();
+		InputStream stream = new FilterInputStream(in) {
+			@Override
+			public int read() throws IOException {
+				var result = super.read();
+				if (result != -1) {
+					count(depth, 1);
+				}
+				return result;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				var result = super.read(b, off, len);
+				count(depth, result);
+				return result;
+			}
+
+			@Override
+			public void close() {
+				// The enclosing stream remains open.
+			}
+		};
+		for (var digest : digests) {
+			stream = new DigestInputStream(stream, digest);
+		}
+
+		// A Bundle-ClassPath jar already has a component.
+		var bomRef = parent.getBomRef() + "^" + path;
+		var existingComponent = parent.getComponents() == null ? null
+				: parent.getComponents().stream().filter(it -> bomRef.equals(it.getBomRef())).findFirst()
+						.orElse(null);
+		var component = existingComponent != null ? existingComponent : createJarComponent(parent, path);
+
+		var enclosing = reading;
+		reading = depth;
+		var mavenDescriptors = List.<MavenDescriptor> of();
+		try {
+			try {
+				mavenDescriptors = walk(component, new ZipInputStream(stream), depth + 1);
+			} catch (ZipException e) {
+				// Not actually an archive, so it's just hashed.
+			}
+			// Read the remainder so that the digests cover the whole archive.
+			stream.transferTo(OutputStream.nullOutputStream());
+		} finally {
+			reading = enclosing;
+		}
+
+		if (existingComponent == null) {
+			addHashes(component, digests);
+			identifier.identify(component, mavenDescriptors);
+			parent.addComponent(component);
+		}
+	}
+
+	private void count(int depth, int bytes) throws LimitException {
+		// The reads of an enclosing archive on behalf of a nested one aren't counted.
+		if (bytes > 0 && depth == reading) {
+			total += bytes;
+			if (total > limit) {
+				throw new LimitException();
+			}
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+
+/**
+ * The parts of a POM used for generating an SBOM, extracted in a single
+ * forward pass with a streaming parser. Elements are matched by local name so
+ * that POMs with and without the POM namespace are both supported.
+ */
+public final record POMInfo(String groupId, String artifactId, String version, String parentGroupId,
+		String parentArtifactId, String parentVersion, String url, List<License> licenses, String scm,
+		String issueManagement, List<String> mailingLists, String distribution) {
+
+	public static record License(String name, String url) {
+	}
+
+	private static final XMLInputFactory FACTORY;
+
+	static {
+		FACTORY = new WstxInputFactory();
+		FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+	}
+
+	/**
+	 * Returns the descriptor of the parent POM, or null if there is no parent or
+	 * its coordinates are not literal.
+	 */
+	public MavenDescriptor getParentDescriptor() {
+		if (parentGroupId != null && parentArtifactId != null && parentVersion != null && isLiteral(parentGroupId)
+				&& isLiteral(parentArtifactId) && isLiteral(parentVersion)) {
+			return new MavenDescriptor(parentGroupId, parentArtifactId, parentVersion, null, "pom");
+		}
+		return null;
+	}
+
+	/**
+	 * Returns this POM with missing values inherited from the given effective
+	 * parent POM. As for Maven, the inherited url and scm have this POM's
+	 * artifactId appended. Values with unresolved properties are not inherited
+	 * because they generally refer to properties of the parent itself.
+	 */
+	public POMInfo inherit(POMInfo parent) {
+		return new POMInfo( //
+				groupId != null ? groupId : parentGroupId, //
+				artifactId, //
+				version != null ? version : parentVersion, //
+				parentGroupId, //
+				parentArtifactId, //
+				parentVersion, //
+				url != null ? url : appendPath(parent.url()), //
+				!licenses.isEmpty() ? licenses
+						: parent.licenses().stream().filter(it -> isLiteral(it.name()) && isLiteral(it.url()))
+								.toList(), //
+				scm != null ? scm : appendPath(parent.scm()), //
+				issueManagement != null ? issueManagement : literal(parent.issueManagement()), //
+				!mailingLists.isEmpty() ? mailingLists
+						: parent.mailingLists().stream().filter(POMInfo::isLiteral).toList(), //
+				distribution != null ? distribution : literal(parent.distribution()));
+	}
+
+	private String appendPath(String value) {
+		if (value == null || artifactId == null || !isLiteral(value)) {
+			return null;
+		}
+		return value.endsWith("/") ? value + artifactId : value + '/' + artifactId;
+	}
+
+	private static String literal(String value) {
+		return isLiteral(value) ? value : null;
+	}
+
+	private static boolean isLiteral(String value) {
+		return value == null || !value.contains("${");
+	}
+
+	public static POMInfo parse(byte[] bytes) {
+		try {
+			var reader = FACTORY.createXMLStreamReader(new ByteArrayInputStream(bytes));
+			try {
+				return new Parser().parse(reader);
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	private static final class Parser {
+		private String groupId;
+		private String artifactId;
+		private String version;
+		private String parentGroupId;
+		private String parentArtifactId;
+		private String parentVersion;
+		private String url;
+		private final List<License> licenses = new ArrayList<>();
+		private String licenseName;
+		private String licenseURL;
+		private String scmConnection;
+		private String scmDeveloperConnection;
+		private String scmURL;
+		private String issueManagement;
+		private final List<String> mailingLists = new ArrayList<>();
+		private String mailingListArchive;
+		private String mailingListPost;
+		private String distribution;
+
+		POMInfo parse(XMLStreamReader reader) throws XMLStreamException {
+			// The path of the current element, without its leading "/".
+			var path = new StringBuilder();
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT: {
+					if (!path.isEmpty()) {
+						path.append('/');
+					}
+					path.append(reader.getLocalName());
+					var current = path.toString();
+					if (setText(current, reader)) {
+						// Reading the text consumed the end element.
+						path.setLength(Math.max(0, path.lastIndexOf("/")));
+					} else if (current.indexOf('/') == -1 && !"project".equals(current)) {
+						return null;
+					}
+					break;
+				}
+				case XMLStreamConstants.END_ELEMENT: {
+					end(path.toString());
+					path.setLength(Math.max(0, path.lastIndexOf("/")));
+					break;
+				}
+				}
+			}
+
+			var scm = scmConnection != null ? scmConnection
+					: scmDeveloperConnection != null ? scmDeveloperConnection : scmURL;
+			return new POMInfo(groupId, artifactId, version, parentGroupId, parentArtifactId, parentVersion, url,
+					Collections.unmodifiableList(licenses), scm, issueManagement,
+					Collections.unmodifiableList(mailingLists), distribution);
+		}
+
+		private boolean setText(String path, XMLStreamReader reader) throws XMLStreamException {
+			switch (path) {
+			case "project/groupId" -> groupId = getText(reader);
+			case "project/artifactId" -> artifactId = getText(reader);
+			case "project/version" -> version = getText(reader);
+			case "project/url" -> url = getText(reader);
+			case "project/parent/groupId" -> parentGroupId = getText(reader);
+			case "project/parent/artifactId" -> parentArtifactId = getText(reader);
+			case "project/parent/version" -> parentVersion = getText(reader);
+			case "project/licenses/license/name" -> licenseName = getText(reader);
+			case "project/licenses/license/url" -> licenseURL = getText(reader);
+			case "project/scm/connection" -> scmConnection = getText(reader);
+			case "project/scm/developerConnection" -> scmDeveloperConnection = getText(reader);
+			case "project/scm/url" -> scmURL = getText(reader);
+			case "project/issueManagement/url" -> issueManagement = getText(reader);
+			case "project/mailingLists/mailingList/archive" -> mailingListArchive = getText(reader);
+			case "project/mailingLists/mailingList/post" -> mailingListPost = getText(reader);
+			case "project/distributionManagement/repository/url" -> distribution = getText(reader);
+			default -> {
+				return false;
+			}
+			}
+			return true;
+		}
+
+		private void end(String path) {
+			switch (path) {
+			case "project/licenses/license" -> {
+				if (licenseName != null || licenseURL != null) {
+					licenses.add(new License(licenseName, licenseURL));
+				}
+				licenseName = null;
+				licenseURL = null;
+			}
+			case "project/mailingLists/mailingList" -> {
+				var mailingList = mailingListArchive != null ? mailingListArchive : mailingListPost;
+				if (mailingList != null) {
+					mailingLists.add(mailingList);
+				}
+				mailingListArchive = null;
+				mailingListPost = null;
+			}
+			default -> {
+			}
+			}
+		}
+
+		private static String getText(XMLStreamReader reader) throws XMLStreamException {
+			var text = reader.getElementText().trim();
+			return text.isEmpty() ? null : text;
+		}
+	}
+}
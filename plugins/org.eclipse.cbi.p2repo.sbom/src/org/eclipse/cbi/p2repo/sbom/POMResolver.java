@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes the effective values of a POM by following its chain of parent POMs.
+ * The effective parent POMs are cached by GAV because a few common parents are
+ * shared by a great many artifacts.
+ */
+public final class POMResolver {
+
+	private final ContentHandler contentHandler;
+
+	private final int maxDepth;
+
+	private final Map<MavenDescriptor, Optional<POMInfo>> effectivePOMs = new ConcurrentHashMap<>();
+
+	public POMResolver(ContentHandler contentHandler, int maxDepth) {
+		this.contentHandler = contentHandler;
+		this.maxDepth = maxDepth;
+	}
+
+	public POMInfo resolve(POMInfo pom) {
+		return resolve(pom, new HashSet<>());
+	}
+
+	private POMInfo resolve(POMInfo pom, Set<MavenDescriptor> visited) {
+		var parentDescriptor = pom.getParentDescriptor();
+		if (parentDescriptor == null || visited.size() >= maxDepth || !visited.add(parentDescriptor)) {
+			return pom;
+		}
+
+		// Don't use computeIfAbsent because the computation is recursive.
+		var parent = effectivePOMs.get(parentDescriptor);
+		if (parent == null) {
+			var parentPOM = getPOM(parentDescriptor);
+			parent = Optional.ofNullable(parentPOM == null ? null : resolve(parentPOM, visited));
+			// A chain truncated by the depth limit is not cached.
+			if (visited.size() < maxDepth) {
+				var existing = effectivePOMs.putIfAbsent(parentDescriptor, parent);
+				if (existing != null) {
+					parent = existing;
+				}
+			}
+		}
+
+		return parent.map(pom::inherit).orElse(pom);
+	}
+
+	private POMInfo getPOM(MavenDescriptor descriptor) {
+		try {
+			var content = contentHandler.getContent(descriptor.toPOMURI());
+			return POMInfo.parse(content.getBytes(StandardCharsets.UTF_8));
+		} catch (ContentHandler.ContentHandlerException e) {
+			if (e.statusCode() != 404) {
+				throw new RuntimeException(e);
+			}
+		} catch (NoSuchFileException | ContentHandler.OfflineException e) {
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return null;
+	}
+}
@@ -65,6 +65,9 @@ public class SBOMApplication implements IApplication {
 			if (verbose) {
 				args.add(0, "-verbose");
 			}
+			var cacheImport = getArgument("-cache-import", args, null);
+			var cacheExport = getArgument("-cache-export", args, null);
+			var coordinateIndexImports = getArguments("-coordinate-index-import", args, List.of());
 
 			Path temporaryCache = null;
 			if (!args.contains("-cache")) {
@@ -76,6 +79,26 @@ public class SBOMApplication implements IApplication {
 			}
 
 			try {
+				if (cacheImport != null) {
+					var count = getCacheStore(args).importArchive(Path.of(cacheImport).toAbsolutePath());
+					if (verbose) {
+						System.out.println("Imported " + count + " cache entries: " + cacheImport);
+					}
+				}
+
+				if (!coordinateIndexImports.isEmpty()) {
+					var index = args.indexOf("-coordinate-index");
+					if (index == -1 || index + 1 >= args.size()) {
+						throw new IllegalArgumentException("-coordinate-index-import requires -coordinate-index");
+					}
+					var coordinateIndex = args.get(index + 1);
+					var count = CoordinateIndex.importSources(Path.of(coordinateIndex).toAbsolutePath(),
+							coordinateIndexImports.stream().map(it -> Path.of(it).toAbsolutePath()).toList());
+					if (verbose) {
+						System.out.println("Indexed " + count + " coordinates: " + coordinateIndex);
+					}
+				}
+
 				if (installationsFolder != null) {
 					generateInstallations(installationsFolder, args, monitor);
 				} else {
@@ -86,6 +109,16 @@ public class SBOMApplication implements IApplication {
 						sbomGeneratorResults.put(new SBOMGenerator(args).generate(monitor), null);
 					}
 				}
+
+				// This must be done before a temporary cache is deleted.
+				if (cacheExport != null) {
+					var cacheKeys = sbomGeneratorResults.keySet().stream()
+							.flatMap(result -> result.cacheKeys().stream()).collect(Collectors.toSet());
+					var count = getCacheStore(args).exportArchive(cacheKeys, Path.of(cacheExport).toAbsolutePath());
+					if (verbose) {
+						System.out.println("Exported " + count + " cache entries: " + cacheExport);
+					}
+				}
 			} finally {
 				if (temporaryCache != null) {
 					IOUtil.delete(temporaryCache);
@@ -109,6 +142,11 @@ public class SBOMApplication implements IApplication {
 			}
 		}
 
+		private static CacheStore getCacheStore(List<String> args) throws IOException {
+			var cache = args.get(args.indexOf("-cache") + 1);
+			return new CacheStore(Path.of(cache).toAbsolutePath(), 0);
+		}
+
 		private void generateInstallations(String installationsFolder, List<String> args, IProgressMonitor monitor)
 				throws Exception {
 			var installationPattern = Pattern
@@ -4,26 +4,30 @@ import static org.eclipse.cbi.p2repo.sbom.ArgumentUtil.getArgument;
 import static org.eclipse.cbi.p2repo.sbom.ArgumentUtil.getArguments;
 import static org.eclipse.cbi.p2repo.sbom.BOMUtil.addExternalReference;
 import static org.eclipse.cbi.p2repo.sbom.BOMUtil.addHashes;
+import static org.eclipse.cbi.p2repo.sbom.BOMUtil.computeHash;
 import static org.eclipse.cbi.p2repo.sbom.BOMUtil.createBomXMLGenerator;
+import static org.eclipse.cbi.p2repo.sbom.BOMUtil.createJarComponent;
+import static org.eclipse.cbi.p2repo.sbom.BOMUtil.createMessageDigests;
 import static org.eclipse.cbi.p2repo.sbom.BOMUtil.createProperty;
+import static org.eclipse.cbi.p2repo.sbom.BOMUtil.getHash;
 import static org.eclipse.cbi.p2repo.sbom.BOMUtil.urlEncodeQueryParameter;
 import static org.eclipse.cbi.p2repo.sbom.IOUtil.extractInstallation;
 import static org.eclipse.cbi.p2repo.sbom.IOUtil.getZipContents;
+import static org.eclipse.cbi.p2repo.sbom.IOUtil.getZipDirectory;
 import static org.eclipse.cbi.p2repo.sbom.URIUtil.parseRedirections;
 import static org.eclipse.cbi.p2repo.sbom.URIUtil.toURI;
-import static org.eclipse.cbi.p2repo.sbom.XMLUtil.evaluate;
-import static org.eclipse.cbi.p2repo.sbom.XMLUtil.getText;
-import static org.eclipse.cbi.p2repo.sbom.XMLUtil.newDocumentBuilder;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -42,12 +46,17 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.jar.JarInputStream;
 import java.util.regex.Pattern;
@@ -56,8 +65,6 @@ import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
-import javax.xml.parsers.ParserConfigurationException;
-
 import org.cyclonedx.Version;
 import org.cyclonedx.generators.BomGeneratorFactory;
 import org.cyclonedx.model.Ancestors;
@@ -118,12 +125,10 @@ import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
 import org.eclipse.equinox.spi.p2.publisher.PublisherHelper;
 import org.eclipse.osgi.util.ManifestElement;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.osgi.framework.Constants;
 import org.osgi.framework.FrameworkUtil;
-import org.w3c.dom.Document;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 public class SBOMGenerator extends AbstractApplication {
 
@@ -161,14 +166,30 @@ public class SBOMGenerator extends AbstractApplication {
 
 	private static final Pattern EDL_10_NAME_PATTERN = Pattern.compile("edl-?(1.0|v10).*\\.(html?|php)");
 
-	private static final Pattern APACHE_PUBLIC_LICENSE_20_PATTERN = Pattern
-			.compile("Apache License\\s+\\*?\\s*Version 2.0, January 2004\\s+\\*?\\s*http://www.apache.org/licenses/");
-
-	private static final Pattern GPL_21_PATTERN = Pattern
-			.compile("\\s*GNU LESSER GENERAL PUBLIC LICENSE\\s+Version 2\\.1, February 1999");
-
-	private static final Pattern SPDX_ID_PATTERN = Pattern
-			.compile("SPDX-License-Identifier:\\s((with\r?\n|[^\r\n\"\\\\|#])+)");
+	// Only the first of these that matches is used, so they are in priority order.
+	private static final List<LicenseMatcher.Fingerprint> LICENSE_FILE_FINGERPRINTS = List.of( //
+			new LicenseMatcher.Fingerprint("Apache License Version 2.0, January 2004 http://www.apache.org/licenses/",
+					false, "https://www.apache.org/licenses/LICENSE-2.0", "Apache-2.0"),
+			new LicenseMatcher.Fingerprint("GNU LESSER GENERAL PUBLIC LICENSE Version 2.1, February 1999", false,
+					"https://spdx.org/licenses/LGPL-2.1-only.html", "LGPL-2.1-only"),
+			new LicenseMatcher.Fingerprint("The Apache Software License, Version 1.1", false,
+					"http://www.apache.org/licenses/LICENSE-1.1", "Apache-1.1"),
+			new LicenseMatcher.Fingerprint("BSD License", true, "https://spdx.org/licenses/0BSD.html", "0BSD"),
+			new LicenseMatcher.Fingerprint("# Eclipse Public License - v 2.0", true,
+					"https://www.eclipse.org/legal/epl-v20.html", "EPL-2.0"),
+			new LicenseMatcher.Fingerprint("Eclipse Public License - v 2.0", true,
+					"https://www.eclipse.org/legal/epl-v20.html", "EPL-2.0"),
+			new LicenseMatcher.Fingerprint("IBM Public License Version 1.0", false,
+					"https://spdx.org/licenses/IPL-1.0.html", "IBM Public License v1.0"));
+
+	// All of these that match are used.
+	private static final LicenseMatcher ABOUT_LICENSE_MATCHER = new LicenseMatcher(List.of( //
+			new LicenseMatcher.Fingerprint("Eclipse Distribution License - v 1.0", false,
+					"https://www.eclipse.org/org/documents/edl-v10.html", "edl-v10"),
+			new LicenseMatcher.Fingerprint("Eclipse Distribution License - Version 1.0", false,
+					"https://www.eclipse.org/org/documents/edl-v10.html", "edl-v10"),
+			new LicenseMatcher.Fingerprint("Eclipse Public License Version 2.0", false,
+					"https://www.eclipse.org/legal/epl-v20.html", "EPL-2.0")));
 
 	private static final Pattern FEATURE_JAR_PATTERN = Pattern.compile("(.*\\.feature)\\.jar");
 
@@ -187,6 +208,13 @@ public class SBOMGenerator extends AbstractApplication {
 	 */
 	private static final URI OSV_URI = URI.create("https://api.osv.dev/v1/query");
 
+	/**
+	 * https://api.clearlydefined.io/api-docs/#/definitions/post_definitions
+	 */
+	private static final URI CLEARLY_DEFINED_DEFINITIONS_URI = URI.create("https://api.clearlydefined.io/definitions");
+
+	private static final int CLEARLY_DEFINED_BATCH_SIZE = 250;
+
 	private static final Pattern MAVEN_POM_PATTERN = Pattern.compile("META-INF/maven/[^/]+/[^/]+/pom.xml");
 
 	private static final Pattern META_INF_FILE_PATTERN = Pattern.compile("META-INF/[^/]+");
@@ -195,12 +223,25 @@ public class SBOMGenerator extends AbstractApplication {
 
 	private static final Pattern BUNDLE_PROPERTIES_PATTERN = Pattern.compile("(.*/)?(bundle|plugin).properties$");
 
+	// The nested jars being analyzed concurrently are limited to this many KB.
+	private static final Semaphore NESTED_JAR_MEMORY = new Semaphore(
+			Integer.getInteger("org.eclipse.cbi.p2repo.sbom.nested.jar.memory", 256) * 1024);
+
 	private static boolean isMetadata(IArtifactDescriptor artifactDescriptor) {
 		return METADATA_ARTIFACT.equals(artifactDescriptor.getArtifactKey().getClassifier());
 	}
 
 	private final Set<String> rejectedURLs = new TreeSet<>();
 
+	// The definitions are fetched in batches after all the artifacts are analyzed.
+	private final List<ClearlyDefinedRequest> clearlyDefinedRequests = Collections.synchronizedList(new ArrayList<>());
+
+	// The issue trackers are checked concurrently after all the artifacts are analyzed.
+	private final List<GitHubIssuesRequest> gitHubIssuesRequests = Collections.synchronizedList(new ArrayList<>());
+
+	// The checksums of nested archives are verified after all the artifacts are analyzed.
+	private final List<NestedArchiveRequest> nestedArchiveRequests = Collections.synchronizedList(new ArrayList<>());
+
 	private final Set<String> allLicenses = new TreeSet<>();
 
 	private final Set<IMetadataRepository> metadataRepositories = new LinkedHashSet<>();
@@ -215,7 +256,7 @@ public class SBOMGenerator extends AbstractApplication {
 
 	private final Map<IInstallableUnit, IInstallableUnit> featuresToFeatureJars = new HashMap<>();
 
-	private final Map<IInstallableUnit, Component> iuComponents = new LinkedHashMap<>();
+	private final Map<IInstallableUnit, IUComponent> iuComponents = new LinkedHashMap<>();
 
 	private final Set<String> excludedComponents = new LinkedHashSet<>();
 
@@ -257,8 +298,6 @@ public class SBOMGenerator extends AbstractApplication {
 
 	private final ContentHandler contentHandler;
 
-	private final SPDXIndex spdxIndex;
-
 	private final boolean verbose;
 
 	private final boolean queryCentral;
@@ -279,14 +318,30 @@ public class SBOMGenerator extends AbstractApplication {
 
 	private final URI installationLocation;
 
+	private final boolean installationInPlace;
+
+	private InstallationArchive installationArchive;
+
 	private final boolean processBundleClassPath;
 
+	private final LicenseMatcher licenseFileMatcher;
+
+	private final POMResolver pomResolver;
+
+	private final CoordinateIndex coordinateIndex;
+
+	private final int nestedArchiveDepth;
+
+	private final long nestedArchiveLimit;
+
 	private final boolean fetchAdvisory;
 
 	private final boolean fetchClearlyDefined;
 
 	private final boolean dependencyTrack;
 
+	private final int prefetchThreads;
+
 	private final Pattern rootIUInclusions;
 
 	private final Pattern classifierExclusions;
@@ -309,81 +364,124 @@ public class SBOMGenerator extends AbstractApplication {
 		verbose = getArgument("-verbose", args);
 
 		contentHandler = new ContentHandler(getArgument("-cache", args, null),
+				getArgument("-cache-max-size", args,
+						Integer.getInteger("org.eclipse.cbi.p2repo.sbom.cache.max.size", 0)),
 				parseRedirections(getArguments("-content-redirections", args, List.of())),
+				MavenResolver.create(getArgument("-maven-local", args),
+						getArguments("-maven-mirrors", args, List.of())),
 				getArgument("-retry", args, Integer.getInteger("org.eclipse.cbi.p2repo.sbom.retry", 5)),
 				getArgument("-retry-delay", args, Integer.getInteger("org.eclipse.cbi.p2repo.sbom.retry.delay", 30)),
-				getArgument("-timeout", args, Integer.getInteger("org.eclipse.cbi.p2repo.sbom.timeout", 30)));
-		processBundleClassPath = getArgument("-process-bundle-classpath", args);
-		spdxIndex = new SPDXIndex(contentHandler);
+				new ContentHandler.Transport(
+						ContentHandler.Transport.parseVersion(getArgument("-http-version", args,
+								System.getProperty("org.eclipse.cbi.p2repo.sbom.http.version", "2"))),
+						getArgument("-connect-timeout", args,
+								Integer.getInteger("org.eclipse.cbi.p2repo.sbom.connect.timeout", 10)),
+						getArgument("-timeout", args, Integer.getInteger("org.eclipse.cbi.p2repo.sbom.timeout", 30)),
+						getArgument("-max-concurrent-requests", args,
+								Integer.getInteger("org.eclipse.cbi.p2repo.sbom.max.concurrent.requests", 64))),
+				getArgument("-offline", args));
+		// Anything that fails from here on must not leak the content handler's
+		// threads and connections, nor an installation archive.
+		try {
+			processBundleClassPath = getArgument("-process-bundle-classpath", args);
+			var licenseFingerprints = new ArrayList<>(LICENSE_FILE_FINGERPRINTS);
+			for (var fingerprints : getArguments("-license-fingerprints", args, List.of())) {
+				licenseFingerprints.addAll(LicenseMatcher.load(Path.of(fingerprints)));
+			}
+			licenseFileMatcher = new LicenseMatcher(licenseFingerprints);
+			pomResolver = new POMResolver(contentHandler, getArgument("-pom-parent-depth", args,
+					Integer.getInteger("org.eclipse.cbi.p2repo.sbom.pom.parent.depth", 10)));
+			nestedArchiveDepth = getArgument("-nested-archive-depth", args,
+					Integer.getInteger("org.eclipse.cbi.p2repo.sbom.nested.archive.depth", 0));
+			nestedArchiveLimit = getArgument("-nested-archive-limit", args,
+					Integer.getInteger("org.eclipse.cbi.p2repo.sbom.nested.archive.limit", 1024)) * 1024L * 1024L;
 
-		queryCentral = getArgument("-central-search", args);
+			queryCentral = getArgument("-central-search", args);
 
-		gitIssues = getArgument("-git-issues", args);
+			var coordinateIndexLocation = getArgument("-coordinate-index", args, null);
+			coordinateIndex = coordinateIndexLocation == null ? null
+					: CoordinateIndex.open(Path.of(coordinateIndexLocation).toAbsolutePath());
 
-		minimizeRootDependencies = getArgument("-minimize-root-dependencies", args);
+			gitIssues = getArgument("-git-issues", args);
 
-		fetchAdvisory = getArgument("-advisory", args);
+			minimizeRootDependencies = getArgument("-minimize-root-dependencies", args);
 
-		fetchClearlyDefined = getArgument("-clearly-defined", args);
+			fetchAdvisory = getArgument("-advisory", args);
 
-		dependencyTrack = getArgument("-dependency-track", args);
+			fetchClearlyDefined = getArgument("-clearly-defined", args);
 
-		uriRedirections = parseRedirections(getArguments("-redirections", args, List.of()));
+			dependencyTrack = getArgument("-dependency-track", args);
 
-		var installation = getArgument("-installation", args, null);
-		if (installation != null) {
-			installationLocation = handleInstallation(installation);
-		} else {
-			installationLocation = null;
-		}
+			prefetchThreads = getArgument("-prefetch-threads", args,
+					Integer.getInteger("org.eclipse.cbi.p2repo.sbom.prefetch.threads",
+							Runtime.getRuntime().availableProcessors()));
 
-		rootIUInclusions = Pattern.compile(String.join("|", getArguments("-root-iu-inclusions", args, List.of())));
+			uriRedirections = parseRedirections(getArguments("-redirections", args, List.of()));
 
-		classifierExclusions = Pattern
-				.compile(getArguments("-classifier-exclusions", args, List.of()).stream().map(it -> switch (it) {
-				case "feature" -> "org.eclipse.update.feature";
-				case "bundle" -> "osgi.bundle";
-				default -> it;
-				}).collect(Collectors.joining("|")));
-		componentExclusions = Pattern.compile(String.join("|", getArguments("-component-exclusions", args, List.of())));
+			installationInPlace = getArgument("-installation-in-place", args);
 
-		for (var requirementInclusions : getArguments("-requirement-inclusions", args, List.of())) {
-			inclusiveContextIUs.add(createContextIU(requirementInclusions));
-		}
+			var installation = getArgument("-installation", args, null);
+			if (installation != null) {
+				installationLocation = handleInstallation(installation);
+			} else {
+				installationLocation = null;
+			}
 
-		for (var requirementExclusions : getArguments("-requirement-exclusions", args, List.of())) {
-			exclusiveContextIUs.add(createContextIU(requirementExclusions));
-		}
+			rootIUInclusions = Pattern.compile(String.join("|", getArguments("-root-iu-inclusions", args, List.of())));
 
-		for (var expectedMissingArtifactIUPattern : getArguments("-expected-missing-artifact-iu-patterns", args,
-				List.of())) {
-			expectedMissingArtifactIUPatterns.add(Pattern.compile(expectedMissingArtifactIUPattern));
-		}
+			classifierExclusions = Pattern
+					.compile(getArguments("-classifier-exclusions", args, List.of()).stream().map(it -> switch (it) {
+					case "feature" -> "org.eclipse.update.feature";
+					case "bundle" -> "osgi.bundle";
+					default -> it;
+					}).collect(Collectors.joining("|")));
+			componentExclusions = Pattern
+					.compile(String.join("|", getArguments("-component-exclusions", args, List.of())));
 
-		combinedRepositoryURIs.addAll(getArguments("-input", args, List.of()).stream().map(URI::create).toList());
-		metadataRepositoryURIs.addAll(getArguments("-metadata", args, List.of()).stream().map(URI::create).toList());
-		artifactRepositoryURIs.addAll(getArguments("-artifact", args, List.of()).stream().map(URI::create).toList());
+			for (var requirementInclusions : getArguments("-requirement-inclusions", args, List.of())) {
+				inclusiveContextIUs.add(createContextIU(requirementInclusions));
+			}
 
-		useRepositoryReferencesAsDependencies = getArgument("-use-repository-references-as-dependencies", arguments);
+			for (var requirementExclusions : getArguments("-requirement-exclusions", args, List.of())) {
+				exclusiveContextIUs.add(createContextIU(requirementExclusions));
+			}
+
+			for (var expectedMissingArtifactIUPattern : getArguments("-expected-missing-artifact-iu-patterns", args,
+					List.of())) {
+				expectedMissingArtifactIUPatterns.add(Pattern.compile(expectedMissingArtifactIUPattern));
+			}
+
+			combinedRepositoryURIs.addAll(getArguments("-input", args, List.of()).stream().map(URI::create).toList());
+			metadataRepositoryURIs
+					.addAll(getArguments("-metadata", args, List.of()).stream().map(URI::create).toList());
+			artifactRepositoryURIs
+					.addAll(getArguments("-artifact", args, List.of()).stream().map(URI::create).toList());
+
+			useRepositoryReferencesAsDependencies = getArgument("-use-repository-references-as-dependencies",
+					arguments);
 
-		combinedDependencyRepositoryURIs
-				.addAll(getArguments("-dependency-input", args, List.of()).stream().map(URI::create).toList());
-		metadataDependencyRepositoryURIs
-				.addAll(getArguments("-dependency-metadata", args, List.of()).stream().map(URI::create).toList());
-		artifactDependencyRepositoryURIs
-				.addAll(getArguments("-dependency-artifact", args, List.of()).stream().map(URI::create).toList());
+			combinedDependencyRepositoryURIs
+					.addAll(getArguments("-dependency-input", args, List.of()).stream().map(URI::create).toList());
+			metadataDependencyRepositoryURIs
+					.addAll(getArguments("-dependency-metadata", args, List.of()).stream().map(URI::create).toList());
+			artifactDependencyRepositoryURIs
+					.addAll(getArguments("-dependency-artifact", args, List.of()).stream().map(URI::create).toList());
 
-		p2ArtifactSourceRepositoryURIs
-				.addAll(getArguments("-p2sources", args, getArguments("-p2-sources", args, List.of())).stream()
-						.map(URI::create).toList());
-		strictSourceRepositories = getArgument("-strict-p2-source-repositories", args);
+			p2ArtifactSourceRepositoryURIs
+					.addAll(getArguments("-p2sources", args, getArguments("-p2-sources", args, List.of())).stream()
+							.map(URI::create).toList());
+			strictSourceRepositories = getArgument("-strict-p2-source-repositories", args);
 
-		xmlOutput = getArgument("-xml-output", args, null);
-		jsonOutput = getArgument("-json-output", args, null);
-		json = getArgument("-json", args);
-		xml = getArgument("-xml", args) || !json && xmlOutput == null && jsonOutput == null;
+			xmlOutput = getArgument("-xml-output", args, null);
+			jsonOutput = getArgument("-json-output", args, null);
+			json = getArgument("-json", args);
+			xml = getArgument("-xml", args) || !json && xmlOutput == null && jsonOutput == null;
 
-		bom = createBOM();
+			bom = createBOM();
+		} catch (Exception e) {
+			close();
+			throw e;
+		}
 	}
 
 	private Bom createBOM() {
@@ -408,38 +506,67 @@ public class SBOMGenerator extends AbstractApplication {
 
 	@Override
 	public IStatus run(IProgressMonitor monitor) throws ProvisionException {
-		var progress = SubMonitor.convert(monitor, 100);
+		var internStatistics = StringInterner.getStatistics();
+		try {
+			var progress = SubMonitor.convert(monitor, 100);
 
-		if (combinedRepositoryURIs.isEmpty() && metadataRepositoryURIs.isEmpty()) {
-			System.err.println("An '-input' or '-metadata' argument is required");
-			return Status.CANCEL_STATUS;
-		}
+			if (combinedRepositoryURIs.isEmpty() && metadataRepositoryURIs.isEmpty()) {
+				System.err.println("An '-input' or '-metadata' argument is required");
+				return Status.CANCEL_STATUS;
+			}
 
-		loadRepositories(progress.split(10, SubMonitor.SUPPRESS_NONE));
+			loadRepositories(progress.split(10, SubMonitor.SUPPRESS_NONE));
 
-		processArtifacts(analyzeArtifacts(progress.split(5, SubMonitor.SUPPRESS_NONE)),
-				progress.split(80, SubMonitor.SUPPRESS_NONE));
+			var iusToDependencies = analyzeArtifacts(progress.split(5, SubMonitor.SUPPRESS_NONE));
+			var prefetcher = prefetch();
+			try {
+				processArtifacts(iusToDependencies, progress.split(80, SubMonitor.SUPPRESS_NONE));
+			} finally {
+				if (prefetcher != null) {
+					// Anything not yet prefetched is no longer needed.
+					prefetcher.shutdownNow();
+				}
+			}
 
-		if (verbose) {
-			System.out.println("licenes");
-			allLicenses.stream().forEach(System.out::println);
+			if (verbose) {
+				System.out.println("licenes");
+				allLicenses.stream().forEach(System.out::println);
 
-			System.out.println();
-			System.out.println("rejected-url");
-			rejectedURLs.stream().forEach(System.out::println);
-		}
+				System.out.println();
+				System.out.println("rejected-url");
+				rejectedURLs.stream().forEach(System.out::println);
 
-		if (dependencyTrack) {
-			transformForDependencyTrack();
-		}
+				System.out.println();
+				System.out.println(StringInterner.getStatistics().since(internStatistics));
+			}
+
+			if (dependencyTrack) {
+				transformForDependencyTrack();
+			}
 
-		computeRootComponents();
+			computeRootComponents();
 
-		save(progress.split(5, SubMonitor.SUPPRESS_NONE));
+			save(progress.split(5, SubMonitor.SUPPRESS_NONE));
 
-		progress.setTaskName("Done");
+			progress.setTaskName("Done");
 
-		return Status.OK_STATUS;
+			return Status.OK_STATUS;
+		} finally {
+			close();
+		}
+	}
+
+	private void close() {
+		if (installationArchive != null) {
+			try {
+				installationArchive.close();
+			} catch (IOException e) {
+				System.err.println("Failed to close the installation archive: " + e);
+			}
+		}
+		// Each generator has its own content handler, so its threads and
+		// connections would otherwise leak across generators.
+		contentHandler.close();
 	}
 
 	public Result generate(IProgressMonitor monitor) throws ProvisionException {
@@ -590,33 +717,18 @@ public class SBOMGenerator extends AbstractApplication {
 		buildArtifactMappings();
 		progress.worked(1);
 
-		// Build the basic component information available without I/O.
+		// Record the component information available without I/O. The components
+		// themselves are created only for those that are actually emitted.
 		for (var entry : artifactIUs.entrySet()) {
 			var iu = entry.getValue();
-			var component = createComponent(iu);
-			iuComponents.put(iu, component);
-
 			var artifactKey = entry.getKey();
 			var artifactDescriptor = artifactDescriptors.get(artifactKey);
-			var bomRef = setBomRef(component, artifactDescriptor);
+			var bomRef = getBomRef(artifactDescriptor);
+			iuComponents.put(iu, new IUComponent(iu, bomRef, isMetadata(artifactDescriptor)));
 
 			var dependency = new Dependency(bomRef);
 			iusToDependencies.put(iu, dependency);
 
-			if (isMetadata(artifactDescriptor)) {
-				var artifacts = iu.getArtifacts();
-				var id = iu.getId();
-				if (id.endsWith(".feature.group")) {
-					if (!isExpectedMissingArtifact(iu)) {
-						component.addProperty(createProperty("missing-artifact", "org.eclipse.update.feature,"
-								+ id.replaceAll("\\.feature\\.group", "") + "," + iu.getVersion()));
-					}
-				} else if (!artifacts.isEmpty() && !isExpectedMissingArtifact(iu)) {
-					component.addProperty(createProperty("missing-artifact",
-							String.join(";", artifacts.stream().map(Object::toString).toList())));
-				}
-			}
-
 			var isExcluded = componentExclusions.matcher(iu.getId()).matches()
 					|| classifierExclusions.matcher(artifactKey.getClassifier()).matches();
 			if (isExcluded) {
@@ -624,7 +736,7 @@ public class SBOMGenerator extends AbstractApplication {
 			} else {
 				includedArtifactIUs.put(artifactKey, iu);
 				if (!dependencyIUs.contains(iu)) {
-					bom.addComponent(component);
+					bom.addComponent(getComponent(iu).materialize());
 					bom.addDependency(dependency);
 				}
 			}
@@ -634,6 +746,62 @@ public class SBOMGenerator extends AbstractApplication {
 		return iusToDependencies;
 	}
 
+	/**
+	 * Warms the content cache with the remote resources that the artifact analysis
+	 * will need and that can be determined from the metadata alone, i.e., the
+	 * Maven POM and artifact checksum, and the OSV advisories. The analysis blocks
+	 * on the same cache lock rather than repeating a download that is in progress.
+	 * Failures are ignored because the analysis will encounter and report them.
+	 */
+	private ExecutorService prefetch() {
+		if (prefetchThreads <= 0 || contentHandler.isOffline()) {
+			return null;
+		}
+
+		var executor = Executors.newFixedThreadPool(prefetchThreads);
+		for (var entry : includedArtifactIUs.entrySet()) {
+			var iu = entry.getValue();
+			if (dependencyIUs.contains(iu)) {
+				// These are processed only if actually used.
+				continue;
+			}
+
+			var artifactDescriptor = artifactDescriptors.get(entry.getKey());
+			var mavenDescriptor = MavenDescriptor.create(artifactDescriptor.getProperties());
+			if (mavenDescriptor == null) {
+				mavenDescriptor = MavenDescriptor.create(iu.getProperties());
+			}
+			if (mavenDescriptor == null || mavenDescriptor.isSnapshot()) {
+				continue;
+			}
+
+			var descriptor = mavenDescriptor;
+			executor.execute(() -> {
+				prefetch(() -> contentHandler.getContent(descriptor.toPOMURI()));
+				// The artifact itself is needed only if its checksum does not match.
+				if (prefetch(() -> contentHandler.getContent(descriptor.toArtifactChecksumURI("sha1")))
+						&& fetchAdvisory) {
+					// The PURL will be the Maven PURL if the artifacts are equivalent.
+					prefetch(() -> getOSVContent(descriptor.mavenPURL()));
+				}
+			});
+		}
+		executor.shutdown();
+		return executor;
+	}
+
+	private boolean prefetch(Callable<?> fetch) {
+		if (Thread.currentThread().isInterrupted()) {
+			return false;
+		}
+		try {
+			fetch.call();
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
 	private void processArtifacts(Map<IInstallableUnit, Dependency> iusToDependencies, IProgressMonitor monitor)
 			throws ProvisionException {
 		new ArtifactAnalyzer(iusToDependencies, monitor).analyze();
@@ -674,18 +842,22 @@ public class SBOMGenerator extends AbstractApplication {
 			if (!usedDependencyIUs.isEmpty()) {
 				analyze(true);
 				for (var iu : usedDependencyIUs) {
-					var component = getComponent(iu);
+					var component = getComponent(iu).materialize();
 					bom.addComponent(component);
 					bom.addDependency(getDependencies(iu));
 				}
 			}
 
+			identifyNestedArchives();
+			attachClearlyDefinedProperties();
+			attachGitHubIssues();
+
 			// Transfer gathered details from binary IU to corresponding source IU.
 			var includedIUs = new HashSet<>(includedArtifactIUs.values());
 			for (var entry : iuComponents.entrySet()) {
 				var iu = entry.getKey();
-				if (includedIUs.contains(iu)) {
-					var component = entry.getValue();
+				var component = entry.getValue().component;
+				if (component != null && includedIUs.contains(iu)) {
 					transferDetailsFromBinaryToSource(component, iu);
 				}
 			}
@@ -716,7 +888,7 @@ public class SBOMGenerator extends AbstractApplication {
 					continue;
 				}
 
-				var component = getComponent(iu);
+				var component = getComponent(iu).materialize();
 				var artifactDescriptor = artifactDescriptors.get(entry.getKey());
 				futures.add(executor.submit(() -> {
 					if (verbose) {
@@ -726,10 +898,11 @@ public class SBOMGenerator extends AbstractApplication {
 					inProgress.incrementAndGet();
 					update();
 
-					var bytes = getArtifactContent(component, artifactDescriptor);
-					setPurl(component, iu, artifactDescriptor, bytes);
-					gatherLicences(component, iu, artifactDescriptor, bytes);
-					gatherInnerJars(component, bytes, artifactDescriptor);
+					var content = getArtifactContent(component, artifactDescriptor);
+					setPurl(component, iu, artifactDescriptor, content);
+					gatherLicences(component, iu, artifactDescriptor, content);
+					gatherInnerJars(component, content, artifactDescriptor, executor);
+					gatherNestedArchives(component, content, artifactDescriptor);
 					gatherAdvisory(component);
 					resolveDependencies(getDependencies(iu), iu, processDependencyIUs);
 
@@ -737,10 +910,9 @@ public class SBOMGenerator extends AbstractApplication {
 				}));
 			}
 
-			executor.shutdown();
-
+			// The executor is shut down only once all the tasks are done because the tasks
+			// submit subtasks for nested jars.
 			try {
-				executor.awaitTermination(10, TimeUnit.MINUTES);
 				var multiStatus = new MultiStatus(getClass(), 0, "Problems");
 				var canceled = false;
 				for (var future : futures) {
@@ -767,7 +939,9 @@ public class SBOMGenerator extends AbstractApplication {
 					throw new ProvisionException(multiStatus);
 				}
 			} catch (InterruptedException ex) {
-				throw new ProvisionException("Analysis took more than 10 minutes to complete", ex);
+				throw new ProvisionException("Analysis was interrupted", ex);
+			} finally {
+				executor.shutdown();
 			}
 		}
 	}
@@ -813,7 +987,10 @@ public class SBOMGenerator extends AbstractApplication {
 			}
 		};
 
-		for (var component : components.toArray(Component[]::new)) {
+		// Promoted components are appended and are processed in turn because they may
+		// have nested components of their own.
+		for (var i = 0; i < components.size(); ++i) {
+			var component = components.get(i);
 			pedigreeHandler.handlePedigree(component, "ancestor", component);
 			var nestedComponents = component.getComponents();
 			if (nestedComponents != null) {
@@ -955,7 +1132,7 @@ public class SBOMGenerator extends AbstractApplication {
 	private Path getInstallationPath(String installation) throws IOException {
 		if (installation.startsWith("https://")) {
 			var installationOriginatingURI = URI.create(installation);
-			var extractedInstallation = extractInstallation(contentHandler.getContentCache(installationOriginatingURI));
+			var extractedInstallation = extract(contentHandler.getContentCache(installationOriginatingURI));
 			var installationParentURI = toURI(extractedInstallation.getParent().resolve("."));
 			uriRedirections.put(installationParentURI, URI.create("archive:" + installationOriginatingURI + "!/"));
 			return extractedInstallation;
@@ -963,7 +1140,7 @@ public class SBOMGenerator extends AbstractApplication {
 		var installationPath = Path.of(installation).toAbsolutePath();
 		if (Files.isRegularFile(installationPath)) {
 			var installationOriginatingURI = uriRedirections.redirect(toURI(installationPath));
-			var extractedInstallation = extractInstallation(installationPath);
+			var extractedInstallation = extract(installationPath);
 			var installationParentURI = toURI(extractedInstallation.getParent().resolve("."));
 			uriRedirections.put(installationParentURI, URI.create("archive:" + installationOriginatingURI + "!/"));
 			return extractedInstallation;
@@ -971,6 +1148,32 @@ public class SBOMGenerator extends AbstractApplication {
 		return installationPath;
 	}
 
+	private Path extract(Path archive) throws IOException {
+		// A compressed tar has no random access so it's always extracted.
+		if (installationInPlace && InstallationArchive.isRandomAccess(archive)) {
+			installationArchive = InstallationArchive.open(archive);
+			if (installationArchive.hasArtifactRepository()) {
+				return installationArchive.extractMetadata();
+			}
+			// Without an artifact repository index, p2 needs the artifact folders.
+			installationArchive.close();
+			installationArchive = null;
+		}
+
+		IOUtil.ProgressListener listener = (done, total) -> {
+		};
+		if (verbose) {
+			var reported = new AtomicInteger(-1);
+			listener = (done, total) -> {
+				var percent = total == 0 ? 100 : (int) (done * 10 / total) * 10;
+				if (reported.getAndAccumulate(percent, Math::max) < percent) {
+					System.out.println("Extracting " + archive.getFileName() + " " + percent + "%");
+				}
+			};
+		}
+		return extractInstallation(archive, Runtime.getRuntime().availableProcessors(), listener);
+	}
+
 	// Ensure that nothing leaks from previous calls or from some internal defaults.
 	// Loading profile metadata can cause artifact repositories to be loaded.
 	private void initRepositoryManagers() {
@@ -999,15 +1202,17 @@ public class SBOMGenerator extends AbstractApplication {
 		}
 	}
 
-	private void gatherInnerJars(Component component, byte[] bytes, IArtifactDescriptor artifactDescriptor) {
+	private void gatherInnerJars(Component component, ArtifactContent content, IArtifactDescriptor artifactDescriptor,
+			ExecutorService executor) {
 		if (!processBundleClassPath || isMetadata(artifactDescriptor) || !PublisherHelper.OSGI_BUNDLE_CLASSIFIER
 				.equals(artifactDescriptor.getArtifactKey().getClassifier())) {
 			return;
 		}
 
-		var innerComponents = new HashMap<String, byte[]>();
+		// The POMs are gathered first because a nested jar may precede its POM.
 		var innerPOMs = new HashMap<String, byte[]>();
-		try (var stream = new JarInputStream(new ByteArrayInputStream(bytes))) {
+		Set<String> jars;
+		try (var stream = new JarInputStream(content.openStream())) {
 			var manifest = stream.getManifest();
 			if (manifest == null) {
 				return;
@@ -1016,50 +1221,191 @@ public class SBOMGenerator extends AbstractApplication {
 			if (value == null) {
 				return;
 			}
-			var jars = Arrays.stream(value.split(",")).map(String::trim).filter(s -> s.endsWith(".jar"))
+			jars = Arrays.stream(value.split(",")).map(String::trim).filter(s -> s.endsWith(".jar"))
 					.collect(Collectors.toSet());
-			if (!jars.isEmpty()) {
-				ZipEntry entry;
-				while ((entry = stream.getNextEntry()) != null) {
-					var name = entry.getName();
-					if (!entry.isDirectory()) {
-						if (jars.contains(name)) {
-							innerComponents.put(name, stream.readAllBytes());
-						} else if (name.endsWith(".pom")) {
-							innerPOMs.put(name, stream.readAllBytes());
-						}
-					}
+			if (jars.isEmpty()) {
+				return;
+			}
+			ZipEntry entry;
+			while ((entry = stream.getNextEntry()) != null) {
+				var name = entry.getName();
+				if (!entry.isDirectory() && name.endsWith(".pom")) {
+					innerPOMs.put(name, stream.readAllBytes());
 				}
 			}
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 
-		if (!innerComponents.isEmpty()) {
-			for (var entry : innerComponents.entrySet()) {
-				var jar = entry.getKey();
-				var nestedJarBytes = entry.getValue();
-				var mavenDescriptor = MavenDescriptor.createFromJarName(jar, queryCentral, contentHandler);
-				if (mavenDescriptor == null) {
-					var pom = innerPOMs.get(jar.replaceAll(".jar$", ".pom"));
-					if (pom != null) {
-						mavenDescriptor = MavenDescriptor.createFromPOM(pom);
+		// Each nested jar is analyzed by a subtask as long as the memory limit permits,
+		// otherwise directly by this thread.
+		var tasks = new ArrayList<FutureTask<Component>>();
+		try (var stream = new JarInputStream(content.openStream())) {
+			ZipEntry entry;
+			while ((entry = stream.getNextEntry()) != null) {
+				var jar = entry.getName();
+				if (!entry.isDirectory() && jars.contains(jar)) {
+					var nestedJarBytes = stream.readAllBytes();
+					var permits = nestedJarBytes.length / 1024 + 1;
+					if (NESTED_JAR_MEMORY.tryAcquire(permits)) {
+						var task = new FutureTask<>(() -> {
+							try {
+								return createInnerJarComponent(component, jar, nestedJarBytes, innerPOMs);
+							} finally {
+								NESTED_JAR_MEMORY.release(permits);
+							}
+						});
+						tasks.add(task);
+						executor.execute(task);
+					} else {
+						var task = new FutureTask<>(
+								() -> createInnerJarComponent(component, jar, nestedJarBytes, innerPOMs));
+						tasks.add(task);
+						task.run();
 					}
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
 
-					if (mavenDescriptor == null) {
-						mavenDescriptor = MavenDescriptor.createFromBytes(nestedJarBytes, queryCentral, contentHandler);
-					}
+		for (var task : tasks) {
+			// Run the task here if no thread has started it yet, rather than wait.
+			task.run();
+			try {
+				component.addComponent(task.get());
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException runtimeException) {
+					throw runtimeException;
 				}
+				throw new RuntimeException(e.getCause());
+			} catch (InterruptedException e) {
+				throw new OperationCanceledException();
+			}
+		}
+	}
+
+	private Component createInnerJarComponent(Component component, String jar, byte[] nestedJarBytes,
+			Map<String, byte[]> innerPOMs) {
+		// The local index is consulted before any remote search.
+		var mavenDescriptor = coordinateIndex == null ? null
+				: coordinateIndex.get(computeHash("SHA-1", nestedJarBytes));
+		if (mavenDescriptor == null) {
+			mavenDescriptor = MavenDescriptor.createFromJarName(jar, queryCentral, contentHandler);
+		}
+		if (mavenDescriptor == null) {
+			var pom = innerPOMs.get(jar.replaceAll(".jar$", ".pom"));
+			if (pom != null) {
+				mavenDescriptor = MavenDescriptor.createFromPOM(pom);
+			}
+
+			if (mavenDescriptor == null) {
+				mavenDescriptor = MavenDescriptor.createFromBytes(nestedJarBytes, queryCentral, contentHandler,
+						coordinateIndex);
+			}
+		}
+
+		var subComponent = mavenDescriptor != null
+				? createMavenJarComponent(component, jar, mavenDescriptor, ArtifactContent.of(nestedJarBytes))
+				: createJarComponent(component, jar);
+		addHashes(subComponent, nestedJarBytes);
+		return subComponent;
+	}
+
+	private void gatherNestedArchives(Component component, ArtifactContent content,
+			IArtifactDescriptor artifactDescriptor) {
+		try {
+			if (nestedArchiveDepth <= 0 || isMetadata(artifactDescriptor) || !content.isZip()) {
+				return;
+			}
+
+			try (var in = content.openStream()) {
+				new NestedArchiveWalker(nestedArchiveDepth, nestedArchiveLimit, this::identifyNestedArchive)
+						.walk(component, in);
+			}
+		} catch (NestedArchiveWalker.LimitException e) {
+			System.err.println("Nested archive analysis of " + component.getBomRef() + " stopped after "
+					+ nestedArchiveLimit / 1024 / 1024 + " MB");
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private record NestedArchiveRequest(Component component, MavenDescriptor mavenDescriptor) {
+	}
 
-				var subComponent = mavenDescriptor != null
-						? createMavenJarComponent(component, jar, mavenDescriptor, nestedJarBytes)
-						: createJarComponent(component, jar);
-				addHashes(subComponent, nestedJarBytes);
-				component.addComponent(subComponent);
+	private void identifyNestedArchive(Component component, List<MavenDescriptor> mavenDescriptors)
+			throws IOException {
+		if (mavenDescriptors.size() == 1) {
+			var mavenDescriptor = mavenDescriptors.get(0);
+			if (!mavenDescriptor.isSnapshot()) {
+				var indexedDescriptor = coordinateIndex == null ? null
+						: coordinateIndex.get(getHash(component, "SHA-1", ArtifactContent.EMPTY));
+				if (indexedDescriptor == null) {
+					nestedArchiveRequests.add(new NestedArchiveRequest(component, mavenDescriptor));
+				} else if (indexedDescriptor.mavenPURL().equals(mavenDescriptor.mavenPURL())) {
+					// The index already maps the computed SHA-1 to this artifact.
+					setMavenIdentity(component, mavenDescriptor);
+				}
+			}
+		} else {
+			// A shaded jar includes the classes of each of these.
+			for (var mavenDescriptor : mavenDescriptors) {
+				var shadedComponent = new Component();
+				shadedComponent.setBomRef(component.getBomRef() + "^" + mavenDescriptor.groupId() + ":"
+						+ mavenDescriptor.artifactId());
+				shadedComponent.setType(Component.Type.LIBRARY);
+				shadedComponent.setName(mavenDescriptor.artifactId());
+				shadedComponent.setGroup(mavenDescriptor.groupId());
+				shadedComponent.setVersion(mavenDescriptor.version());
+				shadedComponent.setPurl(mavenDescriptor.mavenPURL());
+				component.addComponent(shadedComponent);
 			}
 		}
 	}
 
+	private static void setMavenIdentity(Component component, MavenDescriptor mavenDescriptor) {
+		component.setPurl(mavenDescriptor.mavenPURL());
+		component.setName(mavenDescriptor.artifactId());
+		component.setGroup(mavenDescriptor.groupId());
+		component.setVersion(mavenDescriptor.version());
+	}
+
+	/**
+	 * Fetches the SHA-1 checksum of each distinct Maven artifact named by the
+	 * pom.properties of a nested archive once, concurrently, and identifies each
+	 * nested archive whose SHA-1 matches.
+	 */
+	private void identifyNestedArchives() throws ProvisionException {
+		if (nestedArchiveRequests.isEmpty()) {
+			return;
+		}
+
+		var checksums = new HashMap<URI, CompletableFuture<String>>();
+		for (var request : nestedArchiveRequests) {
+			checksums.computeIfAbsent(request.mavenDescriptor().toArtifactChecksumURI("sha1"),
+					contentHandler::getContentAsync);
+		}
+		try {
+			for (var request : nestedArchiveRequests) {
+				var mavenDescriptor = request.mavenDescriptor();
+				try {
+					var checksum = ContentHandler.get(checksums.get(mavenDescriptor.toArtifactChecksumURI("sha1")));
+					if (matchesChecksum(request.component(), checksum, ArtifactContent.EMPTY)) {
+						setMavenIdentity(request.component(), mavenDescriptor);
+					}
+				} catch (ContentHandler.ContentHandlerException e) {
+					if (e.statusCode() != 404) {
+						throw e;
+					}
+				}
+			}
+		} catch (IOException e) {
+			checksums.values().forEach(it -> it.cancel(true));
+			throw new ProvisionException(new Status(IStatus.ERROR, getClass(), e.getMessage(), e));
+		}
+	}
+
 	private void loadArtifactSource(URI location, URI referenced, Set<URI> loaded) {
 		if (loaded.add(location)) {
 			try {
@@ -1316,11 +1662,11 @@ public class SBOMGenerator extends AbstractApplication {
 	}
 
 	private Component createMavenJarComponent(Component parent, String path, MavenDescriptor mavenDescriptor,
-			byte[] bytes) {
+			ArtifactContent content) {
 		var component = new Component();
 		component.setBomRef(parent.getBomRef() + "^" + path);
 		component.setType(Component.Type.LIBRARY);
-		if (setMavenPurl(component, mavenDescriptor, bytes)) {
+		if (setMavenPurl(component, mavenDescriptor, content)) {
 			// If it's verified to be the identical artifact.
 			component.setName(mavenDescriptor.artifactId());
 			component.setGroup(mavenDescriptor.groupId());
@@ -1332,15 +1678,6 @@ public class SBOMGenerator extends AbstractApplication {
 		return component;
 	}
 
-	private Component createJarComponent(Component parent, String path) {
-		var component = new Component();
-		component.setBomRef(parent.getBomRef() + "^" + path);
-		component.setType(Component.Type.LIBRARY);
-		component.setName(path);
-		component.setScope(Scope.REQUIRED);
-		return component;
-	}
-
 	private Component createComponent(IInstallableUnit iu) {
 		var component = new Component();
 		component.setName(iu.getId());
@@ -1360,7 +1697,7 @@ public class SBOMGenerator extends AbstractApplication {
 
 		var provider = iu.getProperty(IInstallableUnit.PROP_PROVIDER, null);
 		if (provider != null) {
-			component.setPublisher(provider);
+			component.setPublisher(StringInterner.intern(provider));
 		}
 
 		var docURL = iu.getProperty(IInstallableUnit.PROP_DOC_URL, null);
@@ -1425,25 +1762,75 @@ public class SBOMGenerator extends AbstractApplication {
 		return component;
 	}
 
-	private String setBomRef(Component component, IArtifactDescriptor artifactDescriptor) {
+	private String getBomRef(IArtifactDescriptor artifactDescriptor) {
 		if (isMetadata(artifactDescriptor)) {
 			var artifactKey = artifactDescriptor.getArtifactKey();
-			component.setBomRef(METADATA_ARTIFACT + "/" + artifactKey.getId() + '_' + artifactKey.getVersion());
-		} else {
-			var artifactRepository = (SimpleArtifactRepository) artifactDescriptor.getRepository();
-			var artifactLocation = artifactRepository.getLocation(artifactDescriptor);
-			var location = artifactRepository.getLocation();
-			var relativeLocation = location.relativize(artifactLocation);
-			component.setBomRef(relativeLocation.toString());
+			return METADATA_ARTIFACT + "/" + artifactKey.getId() + '_' + artifactKey.getVersion();
+		}
+		var artifactRepository = (SimpleArtifactRepository) artifactDescriptor.getRepository();
+		var artifactLocation = artifactRepository.getLocation(artifactDescriptor);
+		var location = artifactRepository.getLocation();
+		var relativeLocation = location.relativize(artifactLocation);
+		return relativeLocation.toString();
+	}
+
+	private void addMissingArtifact(Component component, IInstallableUnit iu) {
+		var artifacts = iu.getArtifacts();
+		var id = iu.getId();
+		if (id.endsWith(".feature.group")) {
+			if (!isExpectedMissingArtifact(iu)) {
+				component.addProperty(createProperty("missing-artifact", "org.eclipse.update.feature,"
+						+ id.replaceAll("\\.feature\\.group", "") + "," + iu.getVersion()));
+			}
+		} else if (!artifacts.isEmpty() && !isExpectedMissingArtifact(iu)) {
+			component.addProperty(createProperty("missing-artifact",
+					String.join(";", artifacts.stream().map(Object::toString).toList())));
+		}
+	}
+
+	/**
+	 * The compact record of the component for an IU. The full component, with its
+	 * properties and touchpoint data, is created from the IU on first use, so that
+	 * the many dependency IUs that are never used don't retain one.
+	 */
+	private final class IUComponent {
+		private final IInstallableUnit iu;
+
+		private final String bomRef;
+
+		private final boolean metadata;
+
+		private volatile Component component;
+
+		IUComponent(IInstallableUnit iu, String bomRef, boolean metadata) {
+			this.iu = iu;
+			this.bomRef = bomRef;
+			this.metadata = metadata;
+		}
+
+		String getBomRef() {
+			return bomRef;
+		}
+
+		synchronized Component materialize() {
+			if (component == null) {
+				var result = createComponent(iu);
+				result.setBomRef(bomRef);
+				if (metadata) {
+					addMissingArtifact(result, iu);
+				}
+				component = result;
+			}
+			return component;
 		}
-		return component.getBomRef();
 	}
 
 	private void setPurl(Component component, IInstallableUnit iu, IArtifactDescriptor artifactDescriptor,
-			byte[] bytes) {
-		var mavenDescriptor = MavenDescriptor.create(iu, artifactDescriptor, bytes, queryCentral, contentHandler);
+			ArtifactContent content) {
+		var mavenDescriptor = MavenDescriptor.create(iu, artifactDescriptor, content, queryCentral, contentHandler,
+				coordinateIndex);
 		if (mavenDescriptor != null && !mavenDescriptor.isSnapshot()) {
-			if (setMavenPurl(component, mavenDescriptor, bytes)) {
+			if (setMavenPurl(component, mavenDescriptor, content)) {
 				return;
 			}
 		}
@@ -1458,9 +1845,10 @@ public class SBOMGenerator extends AbstractApplication {
 				try {
 					var uri = sourceArtifactDescriptor.getRepository().getLocation().resolve("./"
 							+ artifactKey.getClassifier() + "-" + artifactKey.getId() + "-" + artifactKey.getVersion());
-					var sourceBytes = contentHandler.getBinaryContent(uri,
-							() -> getArtifactBytes(sourceArtifactDescriptor.getRepository(), sourceArtifactDescriptor));
-					if (equivalent(bytes, sourceBytes, new ArrayList<>())) {
+					var sourceRepository = sourceArtifactDescriptor.getRepository();
+					var sourcePath = contentHandler.getBinaryContentFile(uri,
+							path -> writeArtifact(sourceRepository, sourceArtifactDescriptor, path), List.of());
+					if (equivalent(content, sourcePath, new ArrayList<>())) {
 						basicLocation = sourceArtifactDescriptor.getRepository().getLocation();
 					}
 				} catch (IOException e) {
@@ -1476,17 +1864,27 @@ public class SBOMGenerator extends AbstractApplication {
 		component.setPurl(purl);
 	}
 
-	private boolean setMavenPurl(Component component, MavenDescriptor mavenDescriptor, byte[] bytes) {
+	private boolean setMavenPurl(Component component, MavenDescriptor mavenDescriptor, ArtifactContent content) {
 		try {
-			var mavenArtifactBytes = contentHandler.getBinaryContent(mavenDescriptor.toArtifactURI());
+			// A matching checksum proves the artifacts are identical without
+			// downloading the Maven artifact.
+			if (!content.isEmpty() && hasMatchingChecksum(component, mavenDescriptor, content)) {
+				requestClearlyDefinedProperty(component, mavenDescriptor);
+				component.setPurl(mavenDescriptor.mavenPURL());
+				return true;
+			}
+
+			var mavenArtifactDigests = createMessageDigests();
+			var mavenArtifactPath = contentHandler.getBinaryContentFile(mavenDescriptor.toArtifactURI(),
+					mavenArtifactDigests);
 
 			// Call this only if the Maven artifact exists.
-			getClearlyDefinedProperty(component, mavenDescriptor);
+			requestClearlyDefinedProperty(component, mavenDescriptor);
 
 			// Only if the artifact is byte-for-byte equal do we generate a PURL reference
 			// to the Maven artifact.
 			var differences = new ArrayList<String>();
-			if (equivalent(bytes, mavenArtifactBytes, differences)) {
+			if (equivalent(content, mavenArtifactPath, differences)) {
 				var purl = mavenDescriptor.mavenPURL();
 				component.setPurl(purl);
 				return true;
@@ -1496,7 +1894,7 @@ public class SBOMGenerator extends AbstractApplication {
 			var pedigree = new Pedigree();
 			var ancenstors = new Ancestors();
 			var ancestorComponent = createAncestorComponent(component, mavenDescriptor);
-			addHashes(ancestorComponent, mavenArtifactBytes);
+			addHashes(ancestorComponent, mavenArtifactDigests);
 			ancenstors.addComponent(ancestorComponent);
 			pedigree.setAncestors(ancenstors);
 			pedigree.setNotes(String.join(", ", differences));
@@ -1517,19 +1915,47 @@ public class SBOMGenerator extends AbstractApplication {
 		return false;
 	}
 
-	private boolean equivalent(byte[] bytes1, byte[] bytes2, List<String> differences) {
+	private boolean hasMatchingChecksum(Component component, MavenDescriptor mavenDescriptor,
+			ArtifactContent content) throws IOException {
 		try {
-			return Arrays.equals(bytes1, bytes2) || zipEquals(bytes1, bytes2, differences);
+			var checksum = contentHandler.getContent(mavenDescriptor.toArtifactChecksumURI("sha1"));
+			return matchesChecksum(component, checksum, content);
+		} catch (ContentHandler.ContentHandlerException e) {
+			if (e.statusCode() != 404) {
+				throw e;
+			}
+			return false;
+		}
+	}
+
+	private static boolean matchesChecksum(Component component, String checksumContent, ArtifactContent content)
+			throws IOException {
+		// Some checksum files are followed by the file name.
+		var checksum = checksumContent.trim().split("\\s+")[0];
+		return checksum.equalsIgnoreCase(getHash(component, "SHA-1", content));
+	}
+
+	private boolean equivalent(ArtifactContent content, Path path, List<String> differences) {
+		try {
+			return content.contentEquals(path) || zipEquals(content, path, differences);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	private boolean zipEquals(byte[] bytes1, byte[] bytes2, List<String> differences) throws IOException {
-		return equals(getZipContents(bytes1), getZipContents(bytes2), differences);
+	private boolean zipEquals(ArtifactContent content, Path path, List<String> differences) throws IOException {
+		// The central directory's CRC and size of each entry suffice to compare the
+		// entries without inflating them.
+		var directory1 = content.getZipDirectory();
+		var directory2 = getZipDirectory(path);
+		if (directory1 != null && directory2 != null) {
+			return equals(directory1, directory2, differences, Object::equals);
+		}
+		return equals(content.getZipContents(), getZipContents(path), differences, Arrays::equals);
 	}
 
-	private boolean equals(Map<String, byte[]> zip1, Map<String, byte[]> zip2, List<String> differences) {
+	private <T> boolean equals(Map<String, T> zip1, Map<String, T> zip2, List<String> differences,
+			BiPredicate<T, T> equality) {
 		for (var key : zip1.keySet()) {
 			if (!zip2.containsKey(key)) {
 				differences.add("Added " + key);
@@ -1542,9 +1968,9 @@ public class SBOMGenerator extends AbstractApplication {
 		}
 		for (var entry : zip1.entrySet()) {
 			var key = entry.getKey();
-			var bytes2 = zip2.get(key);
-			if (bytes2 != null) {
-				if (!Arrays.equals(entry.getValue(), bytes2)) {
+			var value2 = zip2.get(key);
+			if (value2 != null) {
+				if (!equality.test(entry.getValue(), value2)) {
 					differences.add("Modified " + key);
 				}
 			}
@@ -1565,61 +1991,137 @@ public class SBOMGenerator extends AbstractApplication {
 		return artifactDescriptor.getRepository().getLocation();
 	}
 
-	private void getClearlyDefinedProperty(Component component, MavenDescriptor mavenDescriptor) {
-		if (!fetchClearlyDefined) {
+	private record ClearlyDefinedRequest(Component component, MavenDescriptor mavenDescriptor) {
+	}
+
+	private void requestClearlyDefinedProperty(Component component, MavenDescriptor mavenDescriptor) {
+		if (fetchClearlyDefined && !"sources".equals(mavenDescriptor.classifier())) {
+			clearlyDefinedRequests.add(new ClearlyDefinedRequest(component, mavenDescriptor));
+		}
+	}
+
+	/**
+	 * Fetches the ClearlyDefined definitions for all the requested Maven artifacts,
+	 * posting the coordinates that are not yet cached in batches, caching each
+	 * definition individually, and then attaches the declared license properties.
+	 */
+	private void attachClearlyDefinedProperties() {
+		if (clearlyDefinedRequests.isEmpty()) {
 			return;
 		}
-		if (!"sources".equals(mavenDescriptor.classifier())) {
-			var clearlyDefinedURI = mavenDescriptor.toClearlyDefinedURI();
-			try {
-				var clearlyDefinedContent = contentHandler.getContent(clearlyDefinedURI);
+
+		try {
+			var definitions = new HashMap<MavenDescriptor, String>();
+			var uncachedSet = new LinkedHashSet<MavenDescriptor>();
+			for (var request : clearlyDefinedRequests) {
+				var mavenDescriptor = request.mavenDescriptor();
+				if (!definitions.containsKey(mavenDescriptor) && !uncachedSet.contains(mavenDescriptor)) {
+					try {
+						var content = contentHandler.getCachedContent(mavenDescriptor.toClearlyDefinedURI());
+						if (content != null) {
+							definitions.put(mavenDescriptor, content);
+						} else {
+							uncachedSet.add(mavenDescriptor);
+						}
+					} catch (ContentHandler.ContentHandlerException e) {
+						// Cached as missing.
+						definitions.put(mavenDescriptor, null);
+					}
+				}
+			}
+
+			var uncached = List.copyOf(uncachedSet);
+			for (var i = 0; i < uncached.size(); i += CLEARLY_DEFINED_BATCH_SIZE) {
+				var batch = uncached.subList(i, Math.min(i + CLEARLY_DEFINED_BATCH_SIZE, uncached.size()));
+				var coordinates = new JSONArray();
+				batch.forEach(it -> coordinates.put(it.toClearlyDefinedCoordinates()));
+				var response = new JSONObject(contentHandler.getPostContent(CLEARLY_DEFINED_DEFINITIONS_URI,
+						List.of("Content-Type", "application/json"), coordinates.toString()));
+				for (var mavenDescriptor : batch) {
+					var definition = response.optJSONObject(mavenDescriptor.toClearlyDefinedCoordinates());
+					var clearlyDefinedURI = mavenDescriptor.toClearlyDefinedURI();
+					var content = definition != null ? definition.toString()
+							: contentHandler.getContent(clearlyDefinedURI);
+					if (definition != null) {
+						contentHandler.putContent(clearlyDefinedURI, content);
+					}
+					definitions.put(mavenDescriptor, content);
+				}
+			}
+
+			for (var request : clearlyDefinedRequests) {
+				var mavenDescriptor = request.mavenDescriptor();
+				var clearlyDefinedContent = definitions.get(mavenDescriptor);
+				if (clearlyDefinedContent == null) {
+					continue;
+				}
 				try {
 					var clearlyDefinedJSON = new JSONObject(clearlyDefinedContent);
 					var clearlyDefinedLicensed = clearlyDefinedJSON.getJSONObject("licensed");
 					if (clearlyDefinedLicensed.has("declared")) {
 						var clearlyDefinedDeclaredLicense = clearlyDefinedLicensed.get("declared");
 						if (clearlyDefinedDeclaredLicense instanceof String value) {
-							component.addProperty(createProperty("clearly-defined", value));
+							request.component().addProperty(createProperty("clearly-defined", value));
 						}
 					}
 				} catch (RuntimeException ex) {
-					System.err.println("Bad ClearlyDefined content: " + clearlyDefinedURI);
+					System.err.println("Bad ClearlyDefined content: " + mavenDescriptor.toClearlyDefinedURI());
 				}
-			} catch (IOException ex) {
-				throw new RuntimeException(ex);
 			}
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
 		}
 	}
 
-	private byte[] getArtifactContent(Component component, IArtifactDescriptor artifactDescriptor) {
+	private ArtifactContent getArtifactContent(Component component, IArtifactDescriptor artifactDescriptor) {
 		var isMetadata = isMetadata(artifactDescriptor);
-		byte[] bytes;
+		ArtifactContent content;
 		if (isMetadata) {
-			bytes = new byte[0];
+			content = ArtifactContent.EMPTY;
 			component.setType(Type.DATA);
 		} else {
 			// Only a component of type data should have data.
 			component.setData(List.of());
-			bytes = getArtifactBytes(getCompositeArtifactRepository(), artifactDescriptor);
-			addHashes(component, bytes);
+			var digests = createMessageDigests();
+			content = getArtifactContent(getCompositeArtifactRepository(), artifactDescriptor, digests);
+			addHashes(component, digests);
 		}
-		return bytes;
+		return content;
 	}
 
-	private byte[] getArtifactBytes(IArtifactRepository repository, IArtifactDescriptor artifactDescriptor) {
+	// The digests must be those created by createMessageDigests.
+	private ArtifactContent getArtifactContent(IArtifactRepository repository, IArtifactDescriptor artifactDescriptor,
+			List<MessageDigest> digests) {
 		var artifactDescriptorRepository = artifactDescriptor.getRepository();
 		if (artifactDescriptorRepository instanceof SimpleArtifactRepository simpleArtifactRepository) {
 			var location = simpleArtifactRepository.getLocation(artifactDescriptor);
 			if (location != null && !"file".equals(location.getScheme())) {
 				try {
-					return contentHandler.getBinaryContent(location,
-							() -> basicGetArtifactBytes(repository, artifactDescriptor));
+					// The artifact is streamed to the cache and hashed in the same pass, and is
+					// analyzed from there rather than held in memory.
+					var path = contentHandler.getBinaryContentFile(location,
+							it -> writeArtifact(repository, artifactDescriptor, it), digests);
+					return ArtifactContent.of(path);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			if (location != null && installationArchive != null) {
+				try {
+					// The artifacts of an installation analyzed in place are read from its archive.
+					var bytes = installationArchive.read(Path.of(location));
+					if (bytes != null) {
+						digests.forEach(it -> it.update(bytes));
+						return ArtifactContent.of(bytes);
+					}
 				} catch (IOException e) {
 					throw new RuntimeException(e);
 				}
 			}
 		}
-		return basicGetArtifactBytes(repository, artifactDescriptor);
+		var bytes = basicGetArtifactBytes(repository, artifactDescriptor);
+		digests.forEach(it -> it.update(bytes));
+		return ArtifactContent.of(bytes);
 	}
 
 	private byte[] basicGetArtifactBytes(IArtifactRepository repository, IArtifactDescriptor artifactDescriptor) {
@@ -1636,18 +2138,40 @@ public class SBOMGenerator extends AbstractApplication {
 		}
 	}
 
+	private void writeArtifact(IArtifactRepository repository, IArtifactDescriptor artifactDescriptor, Path path)
+			throws IOException {
+		for (var retry = 0;; ++retry) {
+			IStatus status;
+			try (var out = Files.newOutputStream(path)) {
+				status = repository.getRawArtifact(artifactDescriptor, out, new NullProgressMonitor());
+			}
+			if (retry < 5 && status.getCode() == IArtifactRepository.CODE_RETRY) {
+				continue;
+			}
+			if (!status.isOK()) {
+				throw new RuntimeException(new CoreException(status));
+			}
+			return;
+		}
+	}
+
 	private void gatherLicences(Component component, IInstallableUnit iu, IArtifactDescriptor artifactDescriptor,
-			byte[] bytes) {
+			ArtifactContent content) {
 		var licenseToName = new TreeMap<String, String>();
-		if (bytes.length > 2 && bytes[0] == 0x50 && bytes[1] == 0x4B) {
-			gatherComponentDetailsFromJar(component, bytes, licenseToName);
+		try {
+			if (content.isZip()) {
+				gatherComponentDetailsFromJar(component, content, licenseToName);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		}
 
-		var mavenDescriptor = MavenDescriptor.create(iu, artifactDescriptor, bytes, queryCentral, contentHandler);
+		var mavenDescriptor = MavenDescriptor.create(iu, artifactDescriptor, content, queryCentral, contentHandler,
+				coordinateIndex);
 		if (mavenDescriptor != null && !mavenDescriptor.isSnapshot()) {
 			try {
-				var content = contentHandler.getContent(mavenDescriptor.toPOMURI());
-				gatherInformationFromPOM(component, content.getBytes(StandardCharsets.UTF_8), licenseToName);
+				var pomContent = contentHandler.getContent(mavenDescriptor.toPOMURI());
+				gatherInformationFromPOM(component, pomContent.getBytes(StandardCharsets.UTF_8), licenseToName);
 			} catch (ContentHandler.ContentHandlerException e) {
 				if (e.statusCode() != 404) {
 					throw new RuntimeException(e);
@@ -1676,23 +2200,24 @@ public class SBOMGenerator extends AbstractApplication {
 				var url = licenseEntry.getKey();
 				var license = new License();
 				if (licenseName != null) {
-					if (spdxIndex.isValidID(licenseName)) {
-						license.setId(licenseName);
+					if (getSPDXIndex().isValidID(licenseName)) {
+						license.setId(StringInterner.intern(licenseName));
 					} else {
-						license.setName(licenseName);
+						license.setName(StringInterner.intern(licenseName));
 					}
 				} else {
 					license.setName("indeterminate");
 				}
-				license.setUrl(url);
+				license.setUrl(StringInterner.intern(url));
 				licenseChoice.addLicense(license);
 			}
 			component.setLicenses(licenseChoice);
 		}
 	}
 
-	private void gatherComponentDetailsFromJar(Component component, byte[] bytes, Map<String, String> licenseToName) {
-		try (var zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+	private void gatherComponentDetailsFromJar(Component component, ArtifactContent content,
+			Map<String, String> licenseToName) {
+		try (var zip = new ZipInputStream(content.openStream())) {
 			ZipEntry entry;
 			while ((entry = zip.getNextEntry()) != null) {
 				var name = entry.getName();
@@ -1731,9 +2256,10 @@ public class SBOMGenerator extends AbstractApplication {
 									value = "https://" + value;
 								}
 								if (!value.startsWith("http")) {
-									var license = spdxIndex.getLicense(value);
+									// Resolves variants of the SPDX name to the canonical ID.
+									var license = getSPDXIndex().getLicense(value);
 									if (license != null) {
-										licenseToName.put(license, value);
+										licenseToName.put(license, getSPDXIndex().getLicenseId(value));
 									} else {
 										System.err.println("license=" + value);
 									}
@@ -1822,6 +2348,9 @@ public class SBOMGenerator extends AbstractApplication {
 		}
 	}
 
+	private record GitHubIssuesRequest(Component component, URI uri) {
+	}
+
 	private void addGitHubIssues(Component component, String value) {
 		if (!gitIssues) {
 			return;
@@ -1829,55 +2358,70 @@ public class SBOMGenerator extends AbstractApplication {
 		var matcher = GITHUB_SCM_PATTERN.matcher(value);
 		if (matcher.matches()) {
 			var uri = URI.create("https://github.com/" + matcher.group("repo") + "/issues");
-			if (contentHandler.exists(uri)) {
-				addExternalReference(component, ExternalReference.Type.ISSUE_TRACKER, uri.toString());
+			gitHubIssuesRequests.add(new GitHubIssuesRequest(component, uri));
+		}
+	}
+
+	/**
+	 * Checks the existence of each distinct GitHub issues page once, concurrently,
+	 * and adds an issue tracker reference to each component whose repository has
+	 * one. The content handler caches both outcomes persistently.
+	 */
+	private void attachGitHubIssues() throws ProvisionException {
+		if (gitHubIssuesRequests.isEmpty()) {
+			return;
+		}
+
+		var exists = new HashMap<URI, CompletableFuture<Boolean>>();
+		for (var request : gitHubIssuesRequests) {
+			exists.computeIfAbsent(request.uri(), contentHandler::existsAsync);
+		}
+		try {
+			for (var request : gitHubIssuesRequests) {
+				if (exists.get(request.uri()).get()) {
+					addExternalReference(request.component(), ExternalReference.Type.ISSUE_TRACKER,
+							request.uri().toString());
+				}
 			}
+		} catch (ExecutionException e) {
+			throw new ProvisionException(new Status(IStatus.ERROR, getClass(), e.getMessage(), e));
+		} catch (InterruptedException e) {
+			exists.values().forEach(it -> it.cancel(true));
+			throw new ProvisionException("Checking issue trackers was interrupted", e);
 		}
 	}
 
+	private SPDXIndex getSPDXIndex() {
+		return SPDXIndex.getInstance(contentHandler);
+	}
+
 	private void gatherLicencesFromFile(byte[] bytes, Map<String, String> licenseToName) {
-		var content = new String(bytes, StandardCharsets.UTF_8);
-		if (APACHE_PUBLIC_LICENSE_20_PATTERN.matcher(content).find()) {
-			licenseToName.put("https://www.apache.org/licenses/LICENSE-2.0", "Apache-2.0");
-		} else if (GPL_21_PATTERN.matcher(content).find()) {
-			licenseToName.put("https://spdx.org/licenses/LGPL-2.1-only.html", "LGPL-2.1-only");
-		} else if (content.contains("The Apache Software License, Version 1.1")) {
-			licenseToName.put("http://www.apache.org/licenses/LICENSE-1.1", "Apache-1.1");
-		} else if (content.startsWith("BSD License")) {
-			licenseToName.put("https://spdx.org/licenses/0BSD.html", "0BSD");
-		} else if (content.startsWith("# Eclipse Public License - v 2.0")
-				|| content.startsWith("Eclipse Public License - v 2.0")) {
-			licenseToName.put("https://www.eclipse.org/legal/epl-v20.html", "EPL-2.0");
-		} else if (content.contains("IBM Public License Version 1.0")) {
-			licenseToName.put("https://spdx.org/licenses/IPL-1.0.html", "IBM Public License v1.0");
+		var result = licenseFileMatcher.match(bytes);
+		if (!result.fingerprints().isEmpty()) {
+			var fingerprint = result.fingerprints().get(0);
+			licenseToName.put(fingerprint.url(), fingerprint.name());
 		} else {
 			// SPDX-License-Identifier: BSD-3-Clause
-			var matcher = SPDX_ID_PATTERN.matcher(content);
-			if (matcher.find()) {
-				do {
-					var spdxId = matcher.group(1).trim();
-					var license = spdxIndex.getLicense(spdxId);
-					if (license != null) {
-						licenseToName.put(license, spdxId);
-					} else {
-						var parts = spdxId.replaceAll("[()]", "")
-								.split("\\s+OR\\s+|\\s+AND\\s+|\\s+WITH\\s+|\\s+with\\s+");
-						if (parts.length > 1) {
-							for (var part : parts) {
-								license = spdxIndex.getLicense(part);
-								if (license != null) {
-									licenseToName.put(license, spdxId);
-								} else {
-									System.err.println("license-part='" + part + "'");
-								}
+			for (var spdxId : result.spdxIds()) {
+				var license = getSPDXIndex().getLicense(spdxId);
+				if (license != null) {
+					licenseToName.put(license, spdxId);
+				} else {
+					var parts = spdxId.replaceAll("[()]", "")
+							.split("\\s+OR\\s+|\\s+AND\\s+|\\s+WITH\\s+|\\s+with\\s+");
+					if (parts.length > 1) {
+						for (var part : parts) {
+							license = getSPDXIndex().getLicense(part);
+							if (license != null) {
+								licenseToName.put(license, spdxId);
+							} else {
+								System.err.println("license-part='" + part + "'");
 							}
-						} else {
-							System.err.println("license-part='" + spdxId + "'");
 						}
+					} else {
+						System.err.println("license-part='" + spdxId + "'");
 					}
-				} while (matcher.find());
-			} else {
-				// System.err.println("###");
+				}
 			}
 		}
 	}
@@ -1902,107 +2446,63 @@ public class SBOMGenerator extends AbstractApplication {
 			}
 		}
 
-		if (content.indexOf("Eclipse Distribution License - v 1.0") != -1
-				|| content.indexOf("Eclipse Distribution License - Version 1.0") != -1) {
-			licenseToName.put("https://www.eclipse.org/org/documents/edl-v10.html", "edl-v10");
-		}
-
-		if (content.indexOf("Eclipse Public License Version 2.0") != -1) {
-			licenseToName.put("https://www.eclipse.org/legal/epl-v20.html", "EPL-2.0");
+		for (var fingerprint : ABOUT_LICENSE_MATCHER.match(bytes).fingerprints()) {
+			licenseToName.put(fingerprint.url(), fingerprint.name());
 		}
 	}
 
 	private void gatherInformationFromPOM(Component component, byte[] bytes, Map<String, String> licenseToName) {
-		try {
-			var builder = newDocumentBuilder();
-			var document = builder.parse(new InputSource(new ByteArrayInputStream(bytes)));
-			gatherInformationFromPOM(component, document, licenseToName);
-		} catch (RuntimeException ex) {
-			throw ex;
-		} catch (ParserConfigurationException | SAXException | IOException ex) {
-			throw new RuntimeException(ex);
+		var pom = POMInfo.parse(bytes);
+		if (pom != null) {
+			gatherInformationFromPOM(component, pomResolver.resolve(pom), licenseToName);
 		}
 	}
 
-	private void gatherInformationFromPOM(Component component, Document document, Map<String, String> licenseToName) {
-		var licenses = evaluate(document, "//pom:license|//license");
-		if (!licenses.isEmpty()) {
-			for (var element : licenses) {
-				var name = getText(element, "name");
-				var url = getText(element, "url");
-				if (url == null) {
-					if (name == null) {
-						continue;
-					}
-					var spdxLicense = spdxIndex.getLicense(name);
-					if (spdxLicense == null) {
-						spdxLicense = name;
-					}
-					url = spdxLicense;
+	private void gatherInformationFromPOM(Component component, POMInfo pom, Map<String, String> licenseToName) {
+		for (var license : pom.licenses()) {
+			var name = license.name();
+			var url = license.url();
+			if (url == null) {
+				if (name == null) {
+					continue;
 				}
-				var parts = url.split(" *, *");
-				for (var part : parts) {
-					if (part.startsWith("://")) {
-						part = "https" + part;
-					}
-					licenseToName.put(part, name);
+				var spdxLicense = getSPDXIndex().getLicense(name);
+				if (spdxLicense == null) {
+					spdxLicense = name;
 				}
+				url = spdxLicense;
 			}
-		}
-
-		var scms = evaluate(document, "//pom:scm|//scm");
-		for (var element : scms) {
-			var connection = getText(element, "connection");
-			if (connection == null) {
-				connection = getText(element, "developerConnection");
-				if (connection == null) {
-					connection = getText(element, "url");
+			var parts = url.split(" *, *");
+			for (var part : parts) {
+				if (part.startsWith("://")) {
+					part = "https" + part;
 				}
-			}
-			if (connection != null) {
-				addExternalReference(component, ExternalReference.Type.VCS, connection);
+				licenseToName.put(part, name);
 			}
 		}
 
-		var issues = evaluate(document, "//pom:issueManagement|//issueManagement");
-		for (var element : issues) {
-			var url = getText(element, "url");
-			if (url != null) {
-				addExternalReference(component, ExternalReference.Type.ISSUE_TRACKER, url);
-			}
+		var scm = pom.scm();
+		if (scm != null) {
+			addExternalReference(component, ExternalReference.Type.VCS, scm);
 		}
 
-		var websites = evaluate(document, "//pom:project|//project");
-		for (var element : websites) {
-			var url = getText(element, "url");
-			if (url != null && url.startsWith("http")) {
-				addExternalReference(component, ExternalReference.Type.WEBSITE, url);
-			}
+		var issueManagement = pom.issueManagement();
+		if (issueManagement != null) {
+			addExternalReference(component, ExternalReference.Type.ISSUE_TRACKER, issueManagement);
 		}
 
-		var mailingLists = evaluate(document, "//pom:mailingList|//mailingList");
-		for (var element : mailingLists) {
-			var url = getText(element, "archive");
-			if (url == null) {
-				url = getText(element, "post");
-			}
-			if (url != null) {
-				addExternalReference(component, ExternalReference.Type.MAILING_LIST, url);
-			} else {
-				System.err.println("##");
-			}
+		var url = pom.url();
+		if (url != null && url.startsWith("http")) {
+			addExternalReference(component, ExternalReference.Type.WEBSITE, url);
 		}
 
-		var distributions = evaluate(document, "//pom:repository|//repository");
-		for (var element : distributions) {
-			if (element.getParentNode().getLocalName().equals("distributionManagement")) {
-				var url = getText(element, "url");
-				if (url != null) {
-					addExternalReference(component, ExternalReference.Type.DISTRIBUTION, url);
-				} else {
-					System.err.println("##");
-				}
-			}
+		for (var mailingList : pom.mailingLists()) {
+			addExternalReference(component, ExternalReference.Type.MAILING_LIST, mailingList);
+		}
+
+		var distribution = pom.distribution();
+		if (distribution != null) {
+			addExternalReference(component, ExternalReference.Type.DISTRIBUTION, distribution);
 		}
 	}
 
@@ -2021,8 +2521,7 @@ public class SBOMGenerator extends AbstractApplication {
 		if (purl == null) {
 			return;
 		}
-		var queryJson = String.format("{\"package\":{\"purl\":\"%s\"}}", purl);
-		var body = contentHandler.getPostContent(OSV_URI, List.of("Content-Type", "application/json"), queryJson);
+		var body = getOSVContent(purl);
 		var jsonResponse = new JSONObject(body);
 		if (jsonResponse.has("vulns")) {
 			var vulns = jsonResponse.getJSONArray("vulns");
@@ -2053,6 +2552,11 @@ public class SBOMGenerator extends AbstractApplication {
 		}
 	}
 
+	private String getOSVContent(String purl) throws IOException {
+		var queryJson = String.format("{\"package\":{\"purl\":\"%s\"}}", purl);
+		return contentHandler.getPostContent(OSV_URI, List.of("Content-Type", "application/json"), queryJson);
+	}
+
 	private boolean isExcluded(IRequirement requirement) {
 		if (requirement instanceof IRequiredCapability requiredCapability) {
 			var namespace = requiredCapability.getNamespace();
@@ -2074,8 +2578,8 @@ public class SBOMGenerator extends AbstractApplication {
 	}
 
 	private void resolveDependencies(Dependency dependency, IInstallableUnit iu, boolean processDependencyIUs) {
-		var component = getComponent(iu);
-		var componentBomRef = component.getBomRef();
+		var iuComponent = getComponent(iu);
+		var componentBomRef = iuComponent.getBomRef();
 
 		var featureGroupIU = featureJarsToFeatures.get(iu);
 		for (var requirement : (featureGroupIU == null ? iu : featureGroupIU).getRequirements()) {
@@ -2106,7 +2610,8 @@ public class SBOMGenerator extends AbstractApplication {
 							continue;
 						}
 					}
-					component.addProperty(createProperty("unsatisfied-requirement", requirement.toString()));
+					iuComponent.materialize()
+							.addProperty(createProperty("unsatisfied-requirement", requirement.toString()));
 				}
 			} else {
 				for (var requiredIU : requiredIUs) {
@@ -2142,7 +2647,7 @@ public class SBOMGenerator extends AbstractApplication {
 		}
 	}
 
-	private Component getComponent(IInstallableUnit iu) {
+	private IUComponent getComponent(IInstallableUnit iu) {
 		var featureJar = featuresToFeatureJars.get(iu);
 		return iuComponents.get(featureJar == null ? iu : featureJar);
 	}
@@ -2155,8 +2660,11 @@ public class SBOMGenerator extends AbstractApplication {
 			description.setId(matcher.group(1) + matcher.group(2));
 			description.setVersion(iu.getVersion());
 			var binaryIU = MetadataFactory.createInstallableUnit(description);
-			var binaryComponent = getComponent(binaryIU);
-			if (binaryComponent != null) {
+			var binaryIUComponent = getComponent(binaryIU);
+			if (binaryIUComponent != null) {
+				// The binary of an excluded or unused dependency is materialized only for the
+				// details derived from its metadata; it's not added to the bom.
+				var binaryComponent = binaryIUComponent.materialize();
 				var licenseChoice = component.getLicenses();
 				if (licenseChoice == null) {
 					component.setLicenses(binaryComponent.getLicenses());
@@ -2342,9 +2850,11 @@ public class SBOMGenerator extends AbstractApplication {
 		return defaultAgentProvider.createAgent(agentTempDirectory.toUri());
 	}
 
-	public static record Result(List<String> arguments, List<URI> inputs, List<Path> outputs) {
+	public static record Result(List<String> arguments, List<URI> inputs, List<Path> outputs,
+			Set<String> cacheKeys) {
 		public Result(SBOMGenerator sbomGenerator) {
-			this(sbomGenerator.getCommandLineArguments(), sbomGenerator.getInputs(), sbomGenerator.getOutputs());
+			this(sbomGenerator.getCommandLineArguments(), sbomGenerator.getInputs(), sbomGenerator.getOutputs(),
+					sbomGenerator.contentHandler.getAccessedCacheKeys());
 		}
 	}
 
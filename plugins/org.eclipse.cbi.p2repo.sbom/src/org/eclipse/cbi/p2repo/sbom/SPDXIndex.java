@@ -10,31 +10,215 @@
  */
 package org.eclipse.cbi.p2repo.sbom;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.regex.Pattern;
 
 import org.json.JSONObject;
 
 public final class SPDXIndex {
 
+	private static final URI LICENSES_URI = URI.create("https://spdx.org/licenses/licenses.json");
+
+	private static final URI EXCEPTIONS_URI = URI.create("https://spdx.org/licenses/exceptions.json");
+
+	private static final Pattern LICENSE_LIST_VERSION_PATTERN = Pattern
+			.compile("\"licenseListVersion\"\\s*:\\s*\"([^\"]+)\"");
+
+	private static final Pattern SNAPSHOT_NAME_PATTERN = Pattern.compile("spdx-index-[^/]+\\.bin");
+
+	private static final String SNAPSHOT_RESOURCE = "spdx-index.bin";
+
+	private static final int SNAPSHOT_MAGIC = 0x53504458;
+
+	private static final int SNAPSHOT_FORMAT = 2;
+
+	private static final String DEFAULT_REFERENCE_PREFIX = "https://spdx.org/licenses/";
+
+	private static final String DEFAULT_REFERENCE_SUFFIX = ".html";
+
+	// Common variants, normalized, that don't normalize to an SPDX ID or name.
+	private static final Map<String, String> ALIASES = Map.ofEntries( //
+			Map.entry("asl 2", "Apache-2.0"), //
+			Map.entry("al 2", "Apache-2.0"), //
+			Map.entry("apache software license 2", "Apache-2.0"), //
+			Map.entry("apache public license 2", "Apache-2.0"), //
+			Map.entry("apache software license 1.1", "Apache-1.1"), //
+			Map.entry("new bsd license", "BSD-3-Clause"), //
+			Map.entry("modified bsd license", "BSD-3-Clause"), //
+			Map.entry("bsd 3 clause license", "BSD-3-Clause"), //
+			Map.entry("revised bsd license", "BSD-3-Clause"), //
+			Map.entry("simplified bsd license", "BSD-2-Clause"), //
+			Map.entry("bsd 2 clause license", "BSD-2-Clause"), //
+			Map.entry("mozilla public license 2", "MPL-2.0"), //
+			Map.entry("gnu lesser general public license 2.1", "LGPL-2.1-only"), //
+			Map.entry("lgpl 2.1", "LGPL-2.1-only"));
+
+	private static final Map<ContentHandler, SPDXIndex> INSTANCES = new WeakHashMap<>();
+
+	private static record Entry(String id, String name, String reference, boolean deprecated) {
+	}
+
+	private final List<Entry> entries = new ArrayList<>();
+
 	private final Map<String, String> spdxLicenceIds = new TreeMap<>();
 
-	private final Map<String, String> spdxLicenceNames = new TreeMap<>();
+	private final Map<String, Entry> spdxLicenceNames = new TreeMap<>();
+
+	private final Map<String, Entry> normalizedLicences = new HashMap<>();
 
-	public SPDXIndex(ContentHandler contentHandler) {
+	private SPDXIndex() {
+	}
+
+	/**
+	 * Returns the index shared by all generators of this JVM that use the given
+	 * content handler, i.e., the same cache and offline setting. It's loaded from a
+	 * binary snapshot, in the cache folder, of the current version of the SPDX
+	 * license list, such that the JSON is parsed only when a new version of the list
+	 * is published. If the list cannot be fetched, the most recent snapshot is used,
+	 * or else the snapshot bundled as a resource, if there is one.
+	 */
+	public static synchronized SPDXIndex getInstance(ContentHandler contentHandler) {
+		return INSTANCES.computeIfAbsent(contentHandler, SPDXIndex::load);
+	}
+
+	private static SPDXIndex load(ContentHandler contentHandler) {
+		var root = contentHandler.getCache().getRoot();
+		String licenses;
+		String exceptions;
 		try {
-			buildSPDXIndex(contentHandler);
+			licenses = contentHandler.getContent(LICENSES_URI);
+			exceptions = contentHandler.getContent(EXCEPTIONS_URI);
 		} catch (IOException e) {
+			var spdxIndex = loadFallback(root);
+			if (spdxIndex != null) {
+				System.err.println("Using the SPDX license list snapshot because the list is unavailable: " + e);
+				return spdxIndex;
+			}
 			throw new RuntimeException(e);
 		}
+
+		// The versions are extracted without parsing the JSON.
+		var licensesVersion = LICENSE_LIST_VERSION_PATTERN.matcher(licenses);
+		var exceptionsVersion = LICENSE_LIST_VERSION_PATTERN.matcher(exceptions);
+		Path snapshot = null;
+		if (licensesVersion.find() && exceptionsVersion.find()) {
+			var version = licensesVersion.group(1).equals(exceptionsVersion.group(1)) ? licensesVersion.group(1)
+					: licensesVersion.group(1) + "-" + exceptionsVersion.group(1);
+			snapshot = root.resolve("spdx-index-" + version + ".bin");
+			if (Files.isRegularFile(snapshot)) {
+				try (var in = Files.newInputStream(snapshot)) {
+					return read(in, SNAPSHOT_FORMAT);
+				} catch (IOException e) {
+					// Rebuild a corrupt or outdated snapshot.
+				}
+			}
+		}
+
+		var spdxIndex = create(licenses, exceptions);
+		if (snapshot != null) {
+			try {
+				spdxIndex.write(snapshot);
+			} catch (IOException e) {
+				System.err.println("Cannot write the SPDX license list snapshot: " + e);
+			}
+		}
+		return spdxIndex;
 	}
 
-	private void buildSPDXIndex(ContentHandler contentHandler) throws IOException {
-		buildSPDXIndex(contentHandler.getContent(URI.create("https://spdx.org/licenses/licenses.json")), "licenses");
-		buildSPDXIndex(contentHandler.getContent(URI.create("https://spdx.org/licenses/exceptions.json")),
-				"exceptions");
+	private static SPDXIndex loadFallback(Path root) {
+		try (var snapshots = Files.list(root)) {
+			var snapshot = snapshots.filter(it -> SNAPSHOT_NAME_PATTERN.matcher(it.getFileName().toString()).matches())
+					.max(Comparator.comparing(it -> it.toFile().lastModified()));
+			if (snapshot.isPresent()) {
+				try (var in = Files.newInputStream(snapshot.get())) {
+					return read(in, 1);
+				}
+			}
+		} catch (IOException e) {
+			// Try the bundled snapshot instead.
+		}
+
+		try (var in = SPDXIndex.class.getResourceAsStream(SNAPSHOT_RESOURCE)) {
+			if (in != null) {
+				return read(in, 1);
+			}
+		} catch (IOException e) {
+			// There is no usable fallback.
+		}
+		return null;
+	}
+
+	/**
+	 * Creates the index from the JSON of the SPDX license list and exception list.
+	 */
+	public static SPDXIndex create(String licenses, String exceptions) {
+		var spdxIndex = new SPDXIndex();
+		spdxIndex.buildSPDXIndex(licenses, "licenses");
+		spdxIndex.buildSPDXIndex(exceptions, "exceptions");
+		return spdxIndex;
+	}
+
+	private static SPDXIndex read(InputStream in, int minimumFormat) throws IOException {
+		var data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != SNAPSHOT_MAGIC) {
+			throw new IOException("Not an SPDX index snapshot");
+		}
+		// The first format didn't record deprecation, which is tolerable for a fallback.
+		var format = data.readInt();
+		if (format < minimumFormat || format > SNAPSHOT_FORMAT) {
+			throw new IOException("Unsupported SPDX index snapshot format " + format);
+		}
+		var spdxIndex = new SPDXIndex();
+		for (var count = data.readInt(); count > 0; --count) {
+			var id = data.readUTF();
+			var name = data.readUTF();
+			var reference = data.readUTF();
+			var deprecated = format != 1 && data.readBoolean();
+			spdxIndex.add(new Entry(id, name,
+					reference.isEmpty() ? DEFAULT_REFERENCE_PREFIX + id + DEFAULT_REFERENCE_SUFFIX : reference,
+					deprecated));
+		}
+		return spdxIndex;
+	}
+
+	private void write(Path snapshot) throws IOException {
+		var temporarySnapshot = Files.createTempFile(snapshot.getParent(), "spdx-index", ".tmp");
+		try {
+			try (var data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporarySnapshot)))) {
+				data.writeInt(SNAPSHOT_MAGIC);
+				data.writeInt(SNAPSHOT_FORMAT);
+				data.writeInt(entries.size());
+				for (var entry : entries) {
+					data.writeUTF(entry.id());
+					data.writeUTF(entry.name());
+					// Almost all references are the default so they need not be stored.
+					var reference = entry.reference();
+					var defaultReference = DEFAULT_REFERENCE_PREFIX + entry.id() + DEFAULT_REFERENCE_SUFFIX;
+					data.writeUTF(reference.equals(defaultReference) ? "" : reference);
+					data.writeBoolean(entry.deprecated());
+				}
+			}
+			Files.move(temporarySnapshot, snapshot, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporarySnapshot);
+		}
 	}
 
 	@SuppressWarnings("unchecked")
@@ -42,24 +226,128 @@ public final class SPDXIndex {
 		var jsonArray = new JSONObject(licenses).getJSONArray(property);
 		for (var license : (Iterable<JSONObject>) (Iterable<?>) jsonArray) {
 			var reference = license.getString("reference");
-
 			var id = license.getString("exceptions".equals(property) ? "licenseExceptionId" : "licenseId");
-			spdxLicenceIds.put(id, reference);
-
 			var name = license.getString("name");
-			spdxLicenceNames.put(name, reference);
+			var deprecated = license.optBoolean("isDeprecatedLicenseId");
+			add(new Entry(id, name, reference, deprecated));
 		}
 	}
 
+	private void add(Entry entry) {
+		entries.add(entry);
+		spdxLicenceIds.put(entry.id(), entry.reference());
+		spdxLicenceNames.merge(entry.name(), entry, SPDXIndex::prefer);
+		normalizedLicences.merge(normalize(entry.id()), entry, SPDXIndex::prefer);
+		normalizedLicences.merge(normalize(entry.name()), entry, SPDXIndex::prefer);
+	}
+
+	// Deprecated IDs, e.g., GPL-2.0+, share their names with the current IDs.
+	private static Entry prefer(Entry entry, Entry otherEntry) {
+		return entry.deprecated() && !otherEntry.deprecated() ? otherEntry : entry;
+	}
+
 	public String getLicense(String nameOrId) {
 		var license = spdxLicenceIds.get(nameOrId);
 		if (license == null) {
-			license = spdxLicenceNames.get(nameOrId);
+			var entry = spdxLicenceNames.get(nameOrId);
+			if (entry == null) {
+				entry = getNormalizedEntry(nameOrId);
+			}
+			if (entry != null) {
+				license = entry.reference();
+			}
 		}
 		return license;
 	}
 
+	/**
+	 * Returns the SPDX ID of the license or exception with the given ID or name, or
+	 * with a variant of the name such as "The Apache Software License, Version
+	 * 2.0".
+	 */
+	public String getLicenseId(String nameOrId) {
+		if (spdxLicenceIds.containsKey(nameOrId)) {
+			return nameOrId;
+		}
+		var entry = getNormalizedEntry(nameOrId);
+		return entry == null ? null : entry.id();
+	}
+
+	private Entry getNormalizedEntry(String nameOrId) {
+		var key = normalize(nameOrId);
+		var entry = normalizedLicences.get(key);
+		if (entry == null || entry.deprecated()) {
+			var id = ALIASES.get(key);
+			if (id != null) {
+				entry = normalizedLicences.get(normalize(id));
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Normalizes case, punctuation, the spelling "licence", a leading "the", and
+	 * version tokens such that, e.g., "The Apache License, Version 2.0", "Apache
+	 * License v2", and "Apache License 2.0" are all "apache license 2". A trailing
+	 * "+" remains significant as "or later", so "GPL-2.0+" and "GPL-2.0-or-later"
+	 * are both "gpl 2 or later", while "GPL-2.0-only" is "gpl 2 only".
+	 */
+	public static String normalize(String value) {
+		var tokens = new ArrayList<String>();
+		var token = new StringBuilder();
+		var length = value.length();
+		for (var i = 0; i < length; ++i) {
+			var c = Character.toLowerCase(value.charAt(i));
+			if (Character.isLetterOrDigit(c)) {
+				token.append(c);
+			} else if (c == '+') {
+				if (!token.isEmpty()) {
+					tokens.add(token.toString());
+					token.setLength(0);
+				}
+				tokens.add("or");
+				tokens.add("later");
+			} else if (c == '.' && !token.isEmpty() && Character.isDigit(token.charAt(token.length() - 1))
+					&& i + 1 < length && Character.isDigit(value.charAt(i + 1))) {
+				token.append(c);
+			} else if (!token.isEmpty()) {
+				tokens.add(token.toString());
+				token.setLength(0);
+			}
+		}
+		if (!token.isEmpty()) {
+			tokens.add(token.toString());
+		}
+
+		var result = new StringBuilder();
+		for (var i = 0; i < tokens.size(); ++i) {
+			var part = tokens.get(i);
+			if (i == 0 && "the".equals(part)) {
+				continue;
+			}
+			if (("version".equals(part) || "v".equals(part) || "ver".equals(part)) && i + 1 < tokens.size()
+					&& Character.isDigit(tokens.get(i + 1).charAt(0))) {
+				continue;
+			}
+			if (part.length() > 1 && part.charAt(0) == 'v' && Character.isDigit(part.charAt(1))) {
+				part = part.substring(1);
+			}
+			if (Character.isDigit(part.charAt(0))) {
+				while (part.endsWith(".0")) {
+					part = part.substring(0, part.length() - 2);
+				}
+			} else if ("licence".equals(part)) {
+				part = "license";
+			}
+			if (!result.isEmpty()) {
+				result.append(' ');
+			}
+			result.append(part);
+		}
+		return result.toString();
+	}
+
 	public boolean isValidID(String id) {
 		return spdxLicenceIds.containsKey(id);
 	}
-}
\ No newline at end of file
+}
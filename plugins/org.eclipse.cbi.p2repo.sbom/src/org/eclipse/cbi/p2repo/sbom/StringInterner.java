@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deduplicates the strings retained by the SBOM model, such as property keys,
+ * publishers, license URLs and external reference URLs, that repeat across
+ * thousands of components. The JVM's string table is used so that strings no
+ * longer referenced by any model can still be garbage collected.
+ */
+public final class StringInterner {
+
+	/**
+	 * Longer strings, e.g., descriptions and touchpoint XML, are rarely shared so
+	 * interning them would only grow the string table.
+	 */
+	public static final int MAX_LENGTH = 256;
+
+	private static final LongAdder LOOKUPS = new LongAdder();
+
+	private static final LongAdder DUPLICATES = new LongAdder();
+
+	private static final LongAdder DUPLICATE_CHARS = new LongAdder();
+
+	public static record Statistics(long lookups, long duplicates, long duplicateChars) {
+		public Statistics since(Statistics start) {
+			return new Statistics(lookups - start.lookups, duplicates - start.duplicates,
+					duplicateChars - start.duplicateChars);
+		}
+
+		@Override
+		public String toString() {
+			return "interned-strings lookups=" + lookups + " duplicates=" + duplicates + " duplicate-chars="
+					+ duplicateChars;
+		}
+	}
+
+	private StringInterner() {
+		throw new UnsupportedOperationException("Do not instantiate");
+	}
+
+	public static String intern(String value) {
+		if (value == null || value.length() > MAX_LENGTH) {
+			return value;
+		}
+		LOOKUPS.increment();
+		var result = value.intern();
+		if (result != value) {
+			DUPLICATES.increment();
+			DUPLICATE_CHARS.add(value.length());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the statistics accumulated so far by this JVM; use
+	 * {@link Statistics#since(Statistics)} to measure a single run.
+	 */
+	public static Statistics getStatistics() {
+		return new Statistics(LOOKUPS.sum(), DUPLICATES.sum(), DUPLICATE_CHARS.sum());
+	}
+}
@@ -1,29 +1,30 @@
 package org.eclipse.cbi.p2repo.sbom;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
-import javax.xml.XMLConstants;
-import javax.xml.namespace.NamespaceContext;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 
 public final class XMLUtil {
 
-	private static final XPathFactory XPATH_FACTORY = XPathFactory.newInstance();
-
 	private static final DocumentBuilderFactory FACTORY;
 
+	/**
+	 * Builders aren't thread safe, so each is used by one parse at a time. A pool
+	 * rather than a thread local is needed because documents are mostly parsed by
+	 * virtual threads that each run only a single task.
+	 */
+	private static final BlockingQueue<DocumentBuilder> DOCUMENT_BUILDERS = new ArrayBlockingQueue<>(
+			Runtime.getRuntime().availableProcessors());
+
 	private XMLUtil() {
 	}
 
@@ -40,8 +41,26 @@ public final class XMLUtil {
 		}
 	}
 
-	public static DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
-		return FACTORY.newDocumentBuilder();
+	/**
+	 * Parses the document with a pooled builder, creating a new one only if all
+	 * pooled builders are in use.
+	 */
+	public static Document parse(InputSource source) throws SAXException, IOException {
+		var builder = DOCUMENT_BUILDERS.poll();
+		if (builder == null) {
+			try {
+				builder = FACTORY.newDocumentBuilder();
+			} catch (ParserConfigurationException e) {
+				throw new RuntimeException(e.getMessage(), e);
+			}
+		}
+		try {
+			return builder.parse(source);
+		} finally {
+			builder.reset();
+			// A builder beyond the pool's capacity is discarded.
+			DOCUMENT_BUILDERS.offer(builder);
+		}
 	}
 
 	public static String getText(Element element, String name) {
@@ -51,46 +70,4 @@ public final class XMLUtil {
 		}
 		return null;
 	}
-
-	public static List<Element> evaluate(Node node, String expression) {
-		var xPath = XPATH_FACTORY.newXPath();
-		try {
-			var document = node instanceof Document doc ? doc : node.getOwnerDocument();
-			xPath.setNamespaceContext(new NamespaceContext() {
-				@Override
-				public String getNamespaceURI(String prefix) {
-					if (prefix.equals(XMLConstants.DEFAULT_NS_PREFIX)) {
-						return document.lookupNamespaceURI(null);
-					}
-					var result = document.lookupNamespaceURI(prefix);
-					if (result == null) {
-						result = document.lookupNamespaceURI(null);
-					}
-					if (result == null && "pom".equals(prefix)) {
-						return "http://maven.apache.org/POM/4.0.0";
-					}
-					return result;
-				}
-
-				@Override
-				public Iterator<String> getPrefixes(String val) {
-					return null;
-				}
-
-				@Override
-				public String getPrefix(String namespaceURI) {
-					return document.lookupPrefix(namespaceURI);
-				}
-			});
-
-			var nodeList = (NodeList) xPath.compile(expression).evaluate(node, XPathConstants.NODESET);
-			var result = new ArrayList<Element>();
-			for (int i = 0, length = nodeList.getLength(); i < length; ++i) {
-				result.add((Element) nodeList.item(i));
-			}
-			return result;
-		} catch (XPathExpressionException e) {
-			throw new IllegalArgumentException(expression);
-		}
-	}
-}
\ No newline at end of file
+}
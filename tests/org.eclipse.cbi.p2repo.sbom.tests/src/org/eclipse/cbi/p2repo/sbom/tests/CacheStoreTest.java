@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cbi.p2repo.sbom.CacheStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CacheStoreTest {
+
+	@TempDir
+	Path root;
+
+	@Test
+	public void testIndex() throws Exception {
+		var store = new CacheStore(root, 0);
+		var a = store.put("a", "content".getBytes());
+		var b = store.put("b", "content".getBytes());
+		store.putMissing("c");
+
+		// Identical content is stored once.
+		assertEquals(a.hash(), b.hash());
+		assertEquals(store.getPath(a), store.getPath(b));
+
+		// Another store on the same root, e.g., in another process, reads the index.
+		var otherStore = new CacheStore(root, 0);
+		assertArrayEquals("content".getBytes(), Files.readAllBytes(otherStore.getPath(otherStore.get("a"))));
+		assertTrue(otherStore.get("c").isMissing());
+		assertNull(otherStore.get("d"));
+
+		// The latest entry for a key wins once the index is refreshed.
+		otherStore.put("a", "other".getBytes());
+		store.refresh();
+		assertArrayEquals("other".getBytes(), Files.readAllBytes(store.getPath(store.get("a"))));
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		var store = new CacheStore(root, 1000);
+		store.put("a", createContent(400, 'a'));
+		Thread.sleep(10);
+		store.put("b", createContent(1, 'b'));
+		store.put("b", createContent(400, 'b'));
+		Thread.sleep(10);
+		assertNotNull(store.get("a"));
+		Thread.sleep(10);
+
+		// The least recently used blob is evicted, along with its index entries.
+		store.put("c", createContent(401, 'c'));
+		assertNotNull(store.get("a"));
+		assertNull(store.get("b"));
+		assertNotNull(store.get("c"));
+
+		var otherStore = new CacheStore(root, 1000);
+		assertNull(otherStore.get("b"));
+		assertEquals(List.of(true, true), List.of(otherStore.get("a") != null, otherStore.get("c") != null));
+	}
+
+	@Test
+	public void testLookupWhileLocked() throws Exception {
+		var store = new CacheStore(root, 0);
+		store.put("a", "content".getBytes());
+
+		// A lookup doesn't wait while another thread holds the lock, e.g., during a
+		// download.
+		try (var lock = store.lock("a"); var executor = Executors.newSingleThreadExecutor()) {
+			assertNotNull(lock);
+			var hit = executor.submit(() -> store.get("a"));
+			var miss = executor.submit(() -> store.get("b"));
+			assertNotNull(hit.get(10, TimeUnit.SECONDS));
+			assertNull(miss.get(10, TimeUnit.SECONDS));
+		}
+	}
+
+	private static byte[] createContent(int length, char c) {
+		var content = new byte[length];
+		Arrays.fill(content, (byte) c);
+		return content;
+	}
+}
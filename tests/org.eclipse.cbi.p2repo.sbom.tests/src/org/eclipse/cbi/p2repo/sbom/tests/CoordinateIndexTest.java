@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.eclipse.cbi.p2repo.sbom.CoordinateIndex;
+import org.eclipse.cbi.p2repo.sbom.MavenDescriptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CoordinateIndexTest {
+
+	@TempDir
+	Path root;
+
+	@Test
+	public void testLookup() throws Exception {
+		var entries = new TreeMap<String, MavenDescriptor>();
+		for (var i = 0; i < 100; ++i) {
+			entries.put(sha1("artifact" + i),
+					new MavenDescriptor("org.example", "artifact" + i, "1." + i, i % 3 == 0 ? "sources" : null, "jar"));
+		}
+		// Checksums with the same leading bytes land in the same slot.
+		entries.put("0000000000000000000000000000000000000001",
+				new MavenDescriptor("org.example", "collision", "1", null, "pom"));
+		entries.put("0000000000000000000000000000000000000002",
+				new MavenDescriptor("org.example", "collision", "2", null, "jar"));
+
+		var path = root.resolve("index.bin");
+		CoordinateIndex.write(entries, path);
+		var index = CoordinateIndex.open(path);
+		assertEquals(entries.size(), index.size());
+		for (var entry : entries.entrySet()) {
+			assertEquals(entry.getValue(), index.get(entry.getKey()));
+		}
+		assertNull(index.get(sha1("missing")));
+		assertNull(index.get("0000000000000000000000000000000000000003"));
+		assertEquals(entries, index.getEntries());
+	}
+
+	@Test
+	public void testImportRepository() throws Exception {
+		var repository = root.resolve("repository");
+		var jar = createFile(repository, "org/example/lib/2.0/lib-2.0.jar", "jar");
+		var sourcesJar = createFile(repository, "org/example/lib/2.0/lib-2.0-sources.jar", "sources");
+		// The published checksum is preferred over computing it.
+		createFile(repository, "org/example/lib/2.0/lib-2.0-sources.jar.sha1",
+				"ABCDEF0123456789ABCDEF0123456789ABCDEF01  lib-2.0-sources.jar");
+		createFile(repository, "org/example/lib/2.0/other-2.0.jar", "not the artifact");
+
+		var path = root.resolve("index.bin");
+		assertEquals(2, CoordinateIndex.importSources(path, List.of(repository)));
+		var index = CoordinateIndex.open(path);
+		assertEquals(new MavenDescriptor("org.example", "lib", "2.0", null, "jar"), index.get(sha1(jar)));
+		assertEquals(new MavenDescriptor("org.example", "lib", "2.0", "sources", "jar"),
+				index.get("abcdef0123456789abcdef0123456789abcdef01"));
+		assertNull(index.get(sha1(sourcesJar)));
+	}
+
+	private static Path createFile(Path repository, String path, String content) throws Exception {
+		var file = repository.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+		return file;
+	}
+
+	private static String sha1(Path path) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(Files.readAllBytes(path)));
+	}
+
+	private static String sha1(String value) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(value.getBytes()));
+	}
+}
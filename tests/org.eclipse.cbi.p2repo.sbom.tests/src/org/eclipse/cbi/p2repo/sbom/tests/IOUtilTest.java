@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.eclipse.cbi.p2repo.sbom.IOUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class IOUtilTest {
+
+	private static final int THREADS = 4;
+
+	@TempDir
+	Path root;
+
+	@Test
+	public void testZipDirectory() throws Exception {
+		var zip1 = createZip(Map.of("META-INF/", "", "a.txt", "alpha", "b/c.txt", "gamma"), "comment");
+		var zip2 = createZip(Map.of("a.txt", "alpha", "b/c.txt", "delta"), null);
+
+		var directory1 = IOUtil.getZipDirectory(zip1);
+		var directory2 = IOUtil.getZipDirectory(zip2);
+		assertEquals(directory1.keySet(), directory2.keySet());
+
+		var crc = new CRC32();
+		crc.update("alpha".getBytes(StandardCharsets.UTF_8));
+		assertEquals(new IOUtil.ZipEntrySummary(crc.getValue(), 5), directory1.get("a.txt"));
+		assertEquals(directory1.get("a.txt"), directory2.get("a.txt"));
+		assertNotEquals(directory1.get("b/c.txt"), directory2.get("b/c.txt"));
+
+		assertNull(IOUtil.getZipDirectory("not a zip".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testExtractZip() throws Exception {
+		testExtractInstallation("installation.zip");
+	}
+
+	@Test
+	public void testExtractTar() throws Exception {
+		testExtractInstallation("installation.tar");
+	}
+
+	@Test
+	public void testExtractTarGz() throws Exception {
+		testExtractInstallation("installation.tar.gz");
+	}
+
+	@Test
+	public void testExtractOutsideTarget() throws Exception {
+		for (var name : List.of("evil.zip", "evil.tar", "evil.tar.gz")) {
+			var archive = createArchive(name, Map.of("eclipse/a.txt", "alpha", "eclipse/../../escaped.txt", "beta"));
+			assertThrows(IOException.class, () -> IOUtil.extractInstallation(archive, THREADS, (done, total) -> {
+			}));
+			assertFalse(Files.exists(root.resolve("escaped.txt")), name);
+			assertFalse(Files.exists(root.resolve("evil")), name);
+		}
+	}
+
+	private void testExtractInstallation(String name) throws Exception {
+		// Enough files that several are written concurrently.
+		var entries = new TreeMap<String, String>();
+		for (var i = 0; i < 50; ++i) {
+			entries.put("eclipse/plugins/bundle" + i + ".jar", "content " + i);
+		}
+		entries.put("eclipse/configuration/config.ini", "osgi.bundles=");
+		var archive = createArchive(name, entries);
+
+		var progress = new long[2];
+		var installation = IOUtil.extractInstallation(archive, THREADS, (done, total) -> {
+			synchronized (progress) {
+				progress[0] = Math.max(progress[0], done);
+				progress[1] = total;
+			}
+		});
+		var target = root.resolve("installation");
+		assertEquals(target.resolve("eclipse"), installation);
+		for (var entry : entries.entrySet()) {
+			assertEquals(entry.getValue(), Files.readString(target.resolve(entry.getKey())), entry.getKey());
+		}
+		assertEquals(progress[1], progress[0]);
+
+		// A second extraction reuses the existing folder.
+		var marker = installation.resolve("marker");
+		Files.writeString(marker, "marker");
+		assertEquals(installation, IOUtil.extractInstallation(archive, THREADS, (done, total) -> {
+		}));
+		assertEquals("marker", Files.readString(marker));
+		try (var siblings = Files.list(root)) {
+			assertEquals(List.of(archive, target), siblings.sorted().toList().reversed());
+		}
+	}
+
+	private Path createArchive(String name, Map<String, String> entries) throws IOException {
+		var archive = root.resolve(name);
+		if (name.endsWith(".zip")) {
+			Files.write(archive, createZip(new LinkedHashMap<>(entries), null));
+		} else {
+			try (var out = Files.newOutputStream(archive)) {
+				writeTar(name.endsWith(".gz") ? new GZIPOutputStream(out) : out, entries);
+			}
+		}
+		return archive;
+	}
+
+	private static void writeTar(OutputStream out, Map<String, String> entries) throws IOException {
+		try (var tar = new TarArchiveOutputStream(out)) {
+			for (var entry : entries.entrySet()) {
+				var bytes = entry.getValue().getBytes(StandardCharsets.UTF_8);
+				var tarEntry = new TarArchiveEntry(entry.getKey(), true);
+				tarEntry.setSize(bytes.length);
+				tar.putArchiveEntry(tarEntry);
+				tar.write(bytes);
+				tar.closeArchiveEntry();
+			}
+		}
+	}
+
+	private static byte[] createZip(Map<String, String> entries, String comment) throws IOException {
+		var out = new ByteArrayOutputStream();
+		try (var zip = new ZipOutputStream(out)) {
+			for (var entry : entries.entrySet()) {
+				zip.putNextEntry(new ZipEntry(entry.getKey()));
+				zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+			if (comment != null) {
+				zip.setComment(comment);
+			}
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.eclipse.cbi.p2repo.sbom.LicenseMatcher;
+import org.eclipse.cbi.p2repo.sbom.LicenseMatcher.Fingerprint;
+import org.junit.jupiter.api.Test;
+
+public class LicenseMatcherTest {
+
+	private static final Fingerprint APACHE = Fingerprint
+			.parse("https://www.apache.org/licenses/LICENSE-2.0\tApache-2.0\tApache License Version 2.0");
+
+	private static final Fingerprint EPL = Fingerprint
+			.parse("https://www.eclipse.org/legal/epl-2.0\tEPL-2.0\t^Eclipse Public License - v 2.0");
+
+	private static final Fingerprint BSD = Fingerprint.parse("https://spdx.org/licenses/0BSD.html\t0BSD\t^BSD License");
+
+	private final LicenseMatcher matcher = new LicenseMatcher(List.of(APACHE, EPL, BSD));
+
+	@Test
+	public void testParse() {
+		assertTrue(EPL.anchored());
+		assertEquals("Eclipse Public License - v 2.0", EPL.text());
+		assertEquals("EPL-2.0", EPL.name());
+	}
+
+	@Test
+	public void testWhitespaceNormalization() {
+		var result = match("/*\n * Apache License\n *   Version 2.0\n */");
+		assertEquals(List.of(APACHE), result.fingerprints());
+	}
+
+	@Test
+	public void testAnchoring() {
+		// Leading separators don't prevent an anchored match.
+		assertEquals(List.of(EPL), match("\n  Eclipse Public License - v 2.0\n...").fingerprints());
+
+		// An anchored fingerprint doesn't match elsewhere, while an unanchored one does.
+		assertEquals(List.of(APACHE),
+				match("See also the Eclipse Public License - v 2.0 and the Apache License Version 2.0").fingerprints());
+		assertEquals(List.of(), match("Some BSD License").fingerprints());
+
+		// Matches are reported in the order of the fingerprints.
+		assertEquals(List.of(APACHE, BSD), match("BSD License or Apache License Version 2.0").fingerprints());
+	}
+
+	@Test
+	public void testSPDXIds() {
+		var result = match("""
+				// SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 with
+				// Classpath-exception-2.0
+				# SPDX-License-Identifier: MIT # comment
+				SPDX-License-Identifier:Apache-2.0
+				""");
+		assertEquals(List.of("EPL-2.0 OR GPL-2.0 with\n// Classpath-exception-2.0", "MIT"), result.spdxIds());
+	}
+
+	private LicenseMatcher.Result match(String text) {
+		return matcher.match(text.getBytes(StandardCharsets.UTF_8));
+	}
+}
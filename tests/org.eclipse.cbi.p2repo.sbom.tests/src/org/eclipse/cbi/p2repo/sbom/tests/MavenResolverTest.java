@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.cbi.p2repo.sbom.MavenDescriptor;
+import org.eclipse.cbi.p2repo.sbom.MavenResolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MavenResolverTest {
+
+	@TempDir
+	Path root;
+
+	@Test
+	public void testResolve() throws Exception {
+		var local = root.resolve("local");
+		var mirror = root.resolve("mirror");
+		var descriptor = new MavenDescriptor("org.example", "example", "1.0", null, "jar");
+		var pom = createFile(mirror, "org/example/example/1.0/example-1.0.pom");
+		var localPOM = createFile(local, "org/example/example/1.0/example-1.0.pom");
+		var jar = createFile(mirror, "org/example/example/1.0/example-1.0.jar");
+		createFile(root, "secret");
+
+		// The first repository that has the file wins.
+		var resolver = new MavenResolver(List.of(local, mirror));
+		assertEquals(localPOM.toUri(), resolver.resolve(descriptor.toPOMURI()));
+		assertEquals(jar.toUri(), resolver.resolve(descriptor.toArtifactURI()));
+		assertEquals(pom.toUri(), new MavenResolver(List.of(mirror)).resolve(descriptor.toPOMURI()));
+
+		// Only Maven Central files within the repositories are resolved.
+		assertNull(resolver.resolve(descriptor.toArtifactChecksumURI("sha1")));
+		assertNull(resolver.resolve(URI.create(MavenDescriptor.MAVEN_CENTRAL_URI + "../secret")));
+		assertNull(resolver.resolve(URI.create(MavenDescriptor.MAVEN_CENTRAL_URI + "org/example/example/1.0/")));
+		assertNull(resolver.resolve(URI.create(descriptor.toPOMURI() + "?query")));
+		assertNull(resolver.resolve(URI.create("https://example.org/org/example/example/1.0/example-1.0.pom")));
+		assertNull(new MavenResolver(List.of()).resolve(descriptor.toPOMURI()));
+	}
+
+	private static Path createFile(Path repository, String path) throws Exception {
+		var file = repository.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, path);
+		return file.toAbsolutePath().normalize();
+	}
+}
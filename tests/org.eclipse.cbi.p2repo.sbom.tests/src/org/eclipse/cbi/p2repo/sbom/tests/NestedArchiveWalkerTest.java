@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.cyclonedx.model.Component;
+import org.eclipse.cbi.p2repo.sbom.BOMUtil;
+import org.eclipse.cbi.p2repo.sbom.MavenDescriptor;
+import org.eclipse.cbi.p2repo.sbom.NestedArchiveWalker;
+import org.junit.jupiter.api.Test;
+
+public class NestedArchiveWalkerTest {
+
+	@Test
+	public void testTwoLevels() throws Exception {
+		// Random content doesn't compress so each level is about the same size.
+		var data = new byte[100_000];
+		new Random(0).nextBytes(data);
+		var inner = createJar(Map.of("META-INF/maven/org.example/inner/pom.properties",
+				"groupId=org.example\nartifactId=inner\nversion=1.0.0\n".getBytes(StandardCharsets.UTF_8),
+				"data.bin", data));
+		var middle = createJar(Map.of("lib/inner.jar", inner));
+		var outer = createJar(Map.of("lib/middle.jar", middle));
+
+		// Counting the inner jar's bytes for the middle jar too would exceed this.
+		var limit = inner.length * 3L / 2;
+		var identified = new ArrayList<List<MavenDescriptor>>();
+		var walker = new NestedArchiveWalker(2, limit,
+				(component, mavenDescriptors) -> identified.add(mavenDescriptors));
+		var root = new Component();
+		root.setBomRef("outer");
+		walker.walk(root, new ByteArrayInputStream(outer));
+		assertTrue(walker.getTotal() >= inner.length, () -> "total=" + walker.getTotal());
+		assertTrue(walker.getTotal() < limit, () -> "total=" + walker.getTotal());
+
+		var middleComponent = root.getComponents().get(0);
+		assertEquals("outer^lib/middle.jar", middleComponent.getBomRef());
+		var innerComponent = middleComponent.getComponents().get(0);
+		assertEquals("outer^lib/middle.jar^lib/inner.jar", innerComponent.getBomRef());
+		assertEquals(BOMUtil.computeHash("SHA-1", inner), getHash(innerComponent, "SHA-1"));
+		assertEquals(BOMUtil.computeHash("SHA-1", middle), getHash(middleComponent, "SHA-1"));
+
+		// The inner jar is identified before the middle jar that contains it.
+		assertEquals(List.of(List.of(new MavenDescriptor("org.example", "inner", "1.0.0", null, "jar")), List.of()),
+				identified);
+
+		var limited = new NestedArchiveWalker(2, inner.length / 2, (component, mavenDescriptors) -> {
+		});
+		assertThrows(NestedArchiveWalker.LimitException.class,
+				() -> limited.walk(new Component(), new ByteArrayInputStream(outer)));
+	}
+
+	private static String getHash(Component component, String algorithm) {
+		return component.getHashes().stream().filter(it -> algorithm.equals(it.getAlgorithm())).findFirst()
+				.orElseThrow().getValue();
+	}
+
+	private static byte[] createJar(Map<String, byte[]> entries) throws IOException {
+		var out = new ByteArrayOutputStream();
+		try (var zip = new ZipOutputStream(out)) {
+			for (var entry : entries.entrySet()) {
+				zip.putNextEntry(new ZipEntry(entry.getKey()));
+				zip.write(entry.getValue());
+				zip.closeEntry();
+			}
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.eclipse.cbi.p2repo.sbom.MavenDescriptor;
+import org.eclipse.cbi.p2repo.sbom.POMInfo;
+import org.eclipse.cbi.p2repo.sbom.POMInfo.License;
+import org.junit.jupiter.api.Test;
+
+public class POMInfoTest {
+
+	private static final String PARENT = """
+			<project>
+			  <groupId>org.example</groupId>
+			  <artifactId>parent</artifactId>
+			  <version>1</version>
+			  <url>https://example.org/project/</url>
+			  <licenses>
+			    <license><name>Apache-2.0</name><url>https://www.apache.org/licenses/LICENSE-2.0</url></license>
+			    <license><name>${license.name}</name><url>https://example.org/license</url></license>
+			  </licenses>
+			  <scm><url>https://github.com/example/project</url></scm>
+			  <issueManagement><url>${issues.url}</url></issueManagement>
+			  <mailingLists>
+			    <mailingList><post>dev@example.org</post></mailingList>
+			    <mailingList><archive>${archive}</archive></mailingList>
+			  </mailingLists>
+			</project>
+			""";
+
+	private static final String CHILD = """
+			<?xml version="1.0"?>
+			<project xmlns="http://maven.apache.org/POM/4.0.0">
+			  <parent>
+			    <groupId>org.example</groupId>
+			    <artifactId>parent</artifactId>
+			    <version>1</version>
+			  </parent>
+			  <artifactId>child</artifactId>
+			  <dependencies>
+			    <dependency><groupId>ignored</groupId><version>2</version></dependency>
+			  </dependencies>
+			</project>
+			""";
+
+	@Test
+	public void testParse() {
+		var pom = parse("""
+				<project>
+				  <groupId>org.example</groupId>
+				  <artifactId>example</artifactId>
+				  <version>2</version>
+				  <licenses>
+				    <license><url>https://example.org/license</url></license>
+				    <license><comments>Neither name nor URL</comments></license>
+				    <license><name>EPL-2.0</name></license>
+				  </licenses>
+				  <scm>
+				    <url>https://github.com/example/example</url>
+				    <developerConnection>scm:git:ssh://git@github.com/example/example.git</developerConnection>
+				  </scm>
+				  <distributionManagement><repository><url>https://repo.example.org</url></repository></distributionManagement>
+				</project>
+				""");
+		assertEquals("org.example", pom.groupId());
+		assertEquals("2", pom.version());
+		// A license without a name or URL is dropped.
+		assertEquals(List.of(new License(null, "https://example.org/license"), new License("EPL-2.0", null)),
+				pom.licenses());
+		assertEquals("scm:git:ssh://git@github.com/example/example.git", pom.scm());
+		assertEquals("https://repo.example.org", pom.distribution());
+		assertNull(pom.getParentDescriptor());
+
+		assertNull(parse("<settings><groupId>org.example</groupId></settings>"));
+	}
+
+	@Test
+	public void testInherit() {
+		var child = parse(CHILD);
+		assertEquals(new MavenDescriptor("org.example", "parent", "1", null, "pom"), child.getParentDescriptor());
+		assertNull(child.groupId());
+
+		var pom = child.inherit(parse(PARENT));
+		assertEquals("org.example", pom.groupId());
+		assertEquals("child", pom.artifactId());
+		assertEquals("1", pom.version());
+		assertEquals("https://example.org/project/child", pom.url());
+		assertEquals("https://github.com/example/project/child", pom.scm());
+		// Values with unresolved properties are not inherited.
+		assertEquals(List.of(new License("Apache-2.0", "https://www.apache.org/licenses/LICENSE-2.0")),
+				pom.licenses());
+		assertNull(pom.issueManagement());
+		assertEquals(List.of("dev@example.org"), pom.mailingLists());
+	}
+
+	private static POMInfo parse(String pom) {
+		return POMInfo.parse(pom.getBytes(StandardCharsets.UTF_8));
+	}
+}
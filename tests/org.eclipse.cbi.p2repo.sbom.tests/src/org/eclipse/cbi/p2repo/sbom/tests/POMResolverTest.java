@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.cbi.p2repo.sbom.ContentHandler;
+import org.eclipse.cbi.p2repo.sbom.MavenResolver;
+import org.eclipse.cbi.p2repo.sbom.POMInfo;
+import org.eclipse.cbi.p2repo.sbom.POMResolver;
+import org.eclipse.cbi.p2repo.sbom.URIUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class POMResolverTest {
+
+	@TempDir
+	Path root;
+
+	@Test
+	public void testResolve() throws Exception {
+		var repository = root.resolve("repository");
+		createPOM(repository, "grandparent", null, """
+				<url>https://example.org</url>
+				<licenses><license><name>EPL-2.0</name></license></licenses>
+				<issueManagement><url>https://example.org/issues</url></issueManagement>
+				""");
+		createPOM(repository, "parent", "grandparent", "<scm><url>https://example.org/scm</url></scm>");
+		createPOM(repository, "orphan", "missing", "");
+
+		// Local POMs are resolved without network access.
+		try (var contentHandler = new ContentHandler(root.resolve("cache").toString(), 0,
+				URIUtil.parseRedirections(List.of()), new MavenResolver(List.of(repository)), 0, 0,
+				new ContentHandler.Transport(HttpClient.Version.HTTP_2, 1, 1, 1), true)) {
+			var pom = parse(createPOM(repository, "child", "parent", ""));
+			var resolved = new POMResolver(contentHandler, 10).resolve(pom);
+			assertEquals("https://example.org/parent/child", resolved.url());
+			assertEquals("https://example.org/scm/child", resolved.scm());
+			assertEquals("https://example.org/issues", resolved.issueManagement());
+			assertEquals(List.of(new POMInfo.License("EPL-2.0", null)), resolved.licenses());
+
+			// The chain is truncated at the maximum depth.
+			var truncated = new POMResolver(contentHandler, 1).resolve(pom);
+			assertNull(truncated.url());
+			assertEquals("https://example.org/scm/child", truncated.scm());
+
+			// A missing parent is ignored.
+			var orphan = parse(Files.readString(repository.resolve("org/example/orphan/1/orphan-1.pom")));
+			assertEquals(orphan, new POMResolver(contentHandler, 10).resolve(orphan));
+		}
+	}
+
+	private static String createPOM(Path repository, String artifactId, String parentArtifactId, String content)
+			throws Exception {
+		var parent = parentArtifactId == null ? ""
+				: "<parent><groupId>org.example</groupId><artifactId>" + parentArtifactId
+						+ "</artifactId><version>1</version></parent>";
+		var pom = "<project>" + parent + "<groupId>org.example</groupId><artifactId>" + artifactId
+				+ "</artifactId><version>1</version>" + content + "</project>";
+		var file = repository.resolve("org/example/" + artifactId + "/1/" + artifactId + "-1.pom");
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, pom);
+		return pom;
+	}
+
+	private static POMInfo parse(String pom) {
+		return POMInfo.parse(pom.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.eclipse.cbi.p2repo.sbom.SPDXIndex;
+import org.junit.jupiter.api.Test;
+
+public class SPDXIndexTest {
+
+	private static final String LICENSES = """
+			{ "licenseListVersion": "3.27", "licenses": [
+			  { "reference": "https://spdx.org/licenses/Apache-2.0.html", "isDeprecatedLicenseId": false,
+			    "name": "Apache License 2.0", "licenseId": "Apache-2.0" },
+			  { "reference": "https://spdx.org/licenses/GPL-2.0.html", "isDeprecatedLicenseId": true,
+			    "name": "GNU General Public License v2.0 only", "licenseId": "GPL-2.0" },
+			  { "reference": "https://spdx.org/licenses/GPL-2.0+.html", "isDeprecatedLicenseId": true,
+			    "name": "GNU General Public License v2.0 or later", "licenseId": "GPL-2.0+" },
+			  { "reference": "https://spdx.org/licenses/GPL-2.0-only.html", "isDeprecatedLicenseId": false,
+			    "name": "GNU General Public License v2.0 only", "licenseId": "GPL-2.0-only" },
+			  { "reference": "https://spdx.org/licenses/GPL-2.0-or-later.html", "isDeprecatedLicenseId": false,
+			    "name": "GNU General Public License v2.0 or later", "licenseId": "GPL-2.0-or-later" },
+			  { "reference": "https://spdx.org/licenses/LGPL-2.1.html", "isDeprecatedLicenseId": true,
+			    "name": "GNU Lesser General Public License v2.1 only", "licenseId": "LGPL-2.1" },
+			  { "reference": "https://spdx.org/licenses/LGPL-2.1-only.html", "isDeprecatedLicenseId": false,
+			    "name": "GNU Lesser General Public License v2.1 only", "licenseId": "LGPL-2.1-only" },
+			  { "reference": "https://spdx.org/licenses/LGPL-2.1-or-later.html", "isDeprecatedLicenseId": false,
+			    "name": "GNU Lesser General Public License v2.1 or later", "licenseId": "LGPL-2.1-or-later" },
+			  { "reference": "https://spdx.org/licenses/BSD-3-Clause.html", "isDeprecatedLicenseId": false,
+			    "name": "BSD 3-Clause \\"New\\" or \\"Revised\\" License", "licenseId": "BSD-3-Clause" }
+			] }
+			""";
+
+	private static final String EXCEPTIONS = """
+			{ "licenseListVersion": "3.27", "exceptions": [
+			  { "reference": "https://spdx.org/licenses/Classpath-exception-2.0.html", "isDeprecatedLicenseId": false,
+			    "name": "Classpath exception 2.0", "licenseExceptionId": "Classpath-exception-2.0" }
+			] }
+			""";
+
+	private final SPDXIndex spdxIndex = SPDXIndex.create(LICENSES, EXCEPTIONS);
+
+	@Test
+	public void testNormalize() {
+		assertEquals("apache license 2", SPDXIndex.normalize("The Apache License, Version 2.0"));
+		assertEquals("apache license 2", SPDXIndex.normalize("Apache Licence v2"));
+		assertEquals("gpl 2 or later", SPDXIndex.normalize("GPL-2.0+"));
+		assertEquals("gpl 2 or later", SPDXIndex.normalize("GPL-2.0-or-later"));
+		assertEquals("gpl 2 only", SPDXIndex.normalize("GPL-2.0-only"));
+		assertEquals("gpl 2", SPDXIndex.normalize("GPL-2.0"));
+		assertEquals("lgpl 2.1 or later", SPDXIndex.normalize("LGPL 2.1+"));
+	}
+
+	@Test
+	public void testOrLaterAndOnly() {
+		// Exact IDs are retained, even if deprecated.
+		assertEquals("GPL-2.0+", spdxIndex.getLicenseId("GPL-2.0+"));
+		assertEquals("GPL-2.0", spdxIndex.getLicenseId("GPL-2.0"));
+
+		// Variants prefer the current IDs and keep "or later" distinct from "only".
+		assertEquals("GPL-2.0-or-later", spdxIndex.getLicenseId("gpl 2.0+"));
+		assertEquals("GPL-2.0-or-later", spdxIndex.getLicenseId("GNU General Public License v2.0 or later"));
+		assertEquals("GPL-2.0-only", spdxIndex.getLicenseId("GNU General Public License v2.0 only"));
+		assertEquals("LGPL-2.1-or-later", spdxIndex.getLicenseId("LGPL-2.1+"));
+		assertEquals("https://spdx.org/licenses/GPL-2.0-or-later.html",
+				spdxIndex.getLicense("GNU General Public License v2.0 or later"));
+	}
+
+	@Test
+	public void testAliases() {
+		assertEquals("Apache-2.0", spdxIndex.getLicenseId("ASL 2.0"));
+		assertEquals("Apache-2.0", spdxIndex.getLicenseId("The Apache Software License, Version 2.0"));
+		assertEquals("BSD-3-Clause", spdxIndex.getLicenseId("New BSD License"));
+		// The alias is preferred over a deprecated ID with the same normalized form.
+		assertEquals("LGPL-2.1-only", spdxIndex.getLicenseId("lgpl 2.1"));
+		assertEquals("Classpath-exception-2.0", spdxIndex.getLicenseId("Classpath Exception, Version 2"));
+		assertNull(spdxIndex.getLicenseId("Some Other License"));
+	}
+}
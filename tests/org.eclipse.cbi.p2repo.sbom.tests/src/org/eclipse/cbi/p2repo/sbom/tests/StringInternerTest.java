@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.cbi.p2repo.sbom.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cyclonedx.model.Component;
+import org.cyclonedx.model.Property;
+import org.eclipse.cbi.p2repo.sbom.BOMUtil;
+import org.eclipse.cbi.p2repo.sbom.StringInterner;
+import org.junit.jupiter.api.Test;
+
+public class StringInternerTest {
+
+	private static final int COMPONENTS = 20_000;
+
+	private static final int PROPERTIES = 20;
+
+	private static final int PROVIDERS = 50;
+
+	@Test
+	public void testIntern() {
+		var value = "org.eclipse.equinox.p2.name";
+		assertSame(value, StringInterner.intern(new String(value.toCharArray())));
+
+		var start = StringInterner.getStatistics();
+		StringInterner.intern(new String(value.toCharArray()));
+		var statistics = StringInterner.getStatistics().since(start);
+		assertEquals(1, statistics.lookups());
+		assertEquals(1, statistics.duplicates());
+		assertEquals(value.length(), statistics.duplicateChars());
+
+		var longValue = "x".repeat(StringInterner.MAX_LENGTH + 1);
+		assertNotSame(longValue.intern(), StringInterner.intern(new String(longValue.toCharArray())));
+		assertEquals(null, StringInterner.intern(null));
+	}
+
+	/**
+	 * Compares the heap retained by a model whose properties repeat keys and
+	 * values, as created for the components of a large repository, with and
+	 * without interning.
+	 */
+	@Test
+	public void testRetainedHeap() {
+		var plain = measureRetainedHeap(false);
+		var interned = measureRetainedHeap(true);
+		System.out.println("StringInternerTest: " + COMPONENTS + " components with " + PROPERTIES
+				+ " properties retain " + plain / 1024 / 1024 + " MB with plain properties and "
+				+ interned / 1024 / 1024 + " MB with interned properties");
+		assertTrue(interned < plain / 2, () -> "interned=" + interned + " plain=" + plain);
+	}
+
+	private static long measureRetainedHeap(boolean intern) {
+		var before = getUsedHeap();
+		var components = createComponents(intern);
+		var retained = getUsedHeap() - before;
+		assertEquals(COMPONENTS, components.size());
+		return retained;
+	}
+
+	private static List<Component> createComponents(boolean intern) {
+		var components = new ArrayList<Component>();
+		for (var i = 0; i < COMPONENTS; ++i) {
+			var component = new Component();
+			for (var j = 0; j < PROPERTIES; ++j) {
+				// Each string is a distinct instance, as if parsed from the metadata.
+				var name = "org.eclipse.equinox.p2.property." + j;
+				var value = "Eclipse Provider " + (i * PROPERTIES + j) % PROVIDERS;
+				Property property;
+				if (intern) {
+					property = BOMUtil.createProperty(name, value);
+				} else {
+					property = new Property();
+					property.setName(name);
+					property.setValue(value);
+				}
+				component.addProperty(property);
+			}
+			components.add(component);
+		}
+		return components;
+	}
+
+	private static long getUsedHeap() {
+		var memory = ManagementFactory.getMemoryMXBean();
+		for (var i = 0; i < 3; ++i) {
+			System.gc();
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}